@@ -0,0 +1,43 @@
+package pathfollower.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pathfollower.path.pid.ProfiledPIDController;
+import pathfollower.path.pid.TrapezoidProfile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One calculation of a profiled PID controller on a simulated clock. The measurement follows the setpoint,
+ * and the goal moves every run of the follower, so building the profile for a new goal is part of the score
+ * the same way it is part of the loop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ControllerBenchmark {
+    // The calculations between two goals, as many as the updates of one run of the follower
+    private static final int CALCULATIONS_PER_GOAL = 250;
+
+    private ProfiledPIDController controller;
+    private double time = 0;
+    private int calculation = 0;
+
+    @Setup
+    public void setup() {
+        this.controller = new ProfiledPIDController(3, 0, 0,
+                new TrapezoidProfile.Constraints(4.5, 4.5), ReferencePaths.PERIOD);
+        this.controller.setClock(() -> this.time);
+        this.controller.reset(0, 0);
+    }
+
+    @Benchmark
+    public double profiledCalculate() {
+        this.time += ReferencePaths.PERIOD;
+        if (this.calculation++ % CALCULATIONS_PER_GOAL == 0)
+            this.controller.setGoal(this.controller.getGoal().position == 10 ? 0 : 10);
+        return this.controller.calculate(this.controller.getSetpoint().position);
+    }
+}
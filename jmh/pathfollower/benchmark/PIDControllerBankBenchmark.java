@@ -0,0 +1,64 @@
+package pathfollower.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pathfollower.path.pid.PIDController;
+import pathfollower.path.pid.PIDControllerBank;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One calculation of every controller of a bank, against the same calculations on as many {@link PIDController}
+ * objects. Every measurement moves towards its setpoint by the output, like a plant, so the inputs change every
+ * calculation the same way for both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PIDControllerBankBenchmark {
+    @Param({"8", "64", "512"})
+    public int size;
+
+    private PIDController[] controllers;
+    private PIDControllerBank bank;
+
+    private double[] measurements;
+    private double[] setpoints;
+    private double[] outputs;
+
+    @Setup
+    public void setup() {
+        this.controllers = new PIDController[this.size];
+        this.bank = new PIDControllerBank(this.size, 3, 0.5, 0.1, ReferencePaths.PERIOD);
+        this.measurements = new double[this.size];
+        this.setpoints = new double[this.size];
+        this.outputs = new double[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.controllers[i] = new PIDController(3, 0.5, 0.1, ReferencePaths.PERIOD);
+            this.setpoints[i] = i;
+        }
+    }
+
+    @Benchmark
+    public double[] controllers() {
+        for (int i = 0; i < this.size; i++) {
+            this.outputs[i] = this.controllers[i].calculate(this.measurements[i], this.setpoints[i]);
+        }
+        return this.step();
+    }
+
+    @Benchmark
+    public double[] bank() {
+        this.bank.calculate(this.measurements, this.setpoints, this.outputs);
+        return this.step();
+    }
+
+    private double[] step() {
+        for (int i = 0; i < this.size; i++) {
+            this.measurements[i] += this.outputs[i] * ReferencePaths.PERIOD;
+        }
+        return this.outputs;
+    }
+}
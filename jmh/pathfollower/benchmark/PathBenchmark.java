@@ -0,0 +1,72 @@
+package pathfollower.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pathfollower.math.geometry.Pose2d;
+import pathfollower.math.geometry.Rotation2d;
+import pathfollower.math.geometry.Translation2d;
+import pathfollower.path.Path;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The hot paths of a path, over curves with a few amounts of waypoints and a few resolutions of the
+ * derivatives and the integrals. Every call queries another point of the path, so they don't hit the same
+ * point every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathBenchmark {
+    @Param({"3", "6", "12"})
+    public int waypoints;
+
+    @Param({"0.001", "0.0001"})
+    public double dx;
+
+    private Path path;
+    private double[] ts;
+    private Pose2d[] poses;
+    private int query = 0;
+
+    @Setup
+    public void setup() {
+        this.path = ReferencePaths.createPath(this.waypoints, this.dx);
+        this.ts = ReferencePaths.createTs();
+
+        // Poses near the path, like a robot that follows it with a small error
+        this.poses = new Pose2d[ReferencePaths.QUERIES];
+        Random random = new Random(this.waypoints);
+        for (int i = 0; i < this.poses.length; i++) {
+            this.poses[i] = new Pose2d(this.path.getLocation(random.nextDouble())
+                    .plus(new Translation2d(random.nextGaussian() * 0.2, random.nextGaussian() * 0.2)), new Rotation2d());
+        }
+    }
+
+    private int nextQuery() {
+        return this.query++ & (ReferencePaths.QUERIES - 1);
+    }
+
+    @Benchmark
+    public double getX() {
+        return this.path.getX(this.ts[this.nextQuery()]);
+    }
+
+    @Benchmark
+    public Path.State getClosestPoint() {
+        return this.path.getClosestPoint(this.poses[this.nextQuery()]);
+    }
+
+    @Benchmark
+    public double getDistance() {
+        return this.path.getDistance(this.ts[this.nextQuery()]);
+    }
+
+    @Benchmark
+    public double getCurvatureRadius() {
+        return this.path.getCurvatureRadius(this.ts[this.nextQuery()]);
+    }
+}
@@ -0,0 +1,46 @@
+package pathfollower.benchmark;
+
+import pathfollower.math.geometry.Translation2d;
+import pathfollower.path.Path;
+import pathfollower.path.path.BezierCurve;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The paths and the constants the benchmarks share, so every benchmark runs over the same curves.
+ */
+final class ReferencePaths {
+    // The amount of points the queries of a path cycle through, so they don't hit the same point every call
+    static final int QUERIES = 256;
+    static final double PERIOD = 0.02;
+
+    static final Path.Constants PATH_CONSTANTS = new Path.Constants(4.5, 4.5, 0.5);
+
+    private ReferencePaths() {}
+
+    /**
+     * Creates a Bézier curve through random control points across the field, the same points every time.
+     */
+    static Path createPath(int waypoints, double dx) {
+        Random random = new Random(waypoints);
+        List<Translation2d> points = new ArrayList<>();
+        for (int i = 0; i < waypoints; i++) {
+            points.add(new Translation2d((random.nextDouble() * 14) - 7, (random.nextDouble() * 7) - 3.5));
+        }
+        return new BezierCurve(PATH_CONSTANTS, dx, points);
+    }
+
+    /**
+     * Creates the ts the queries of a path cycle through, the same ts every time.
+     */
+    static double[] createTs() {
+        double[] ts = new double[QUERIES];
+        Random random = new Random(0);
+        for (int i = 0; i < ts.length; i++) {
+            ts[i] = random.nextDouble();
+        }
+        return ts;
+    }
+}
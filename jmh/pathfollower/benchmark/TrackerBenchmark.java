@@ -0,0 +1,66 @@
+package pathfollower.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pathfollower.math.geometry.Pose2d;
+import pathfollower.math.geometry.Rotation2d;
+import pathfollower.path.Path;
+import pathfollower.path.PathTracker;
+import pathfollower.path.Robot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update of every tracker, driving a robot along the same paths on a simulated clock with the same latency
+ * compensation. An invocation is a whole run from the start of the path to about its end, and the score is the
+ * time of one update of it. Starting the run over, and its first update that builds the motion profiles, are
+ * done before the invocation, so only the updates of the loop are timed. The GC profiler counts the allocation
+ * of the whole iteration though, starting the runs over included, so the allocation of the updates alone is
+ * checked by {@link PerformanceGate} instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(TrackerBenchmark.UPDATES)
+public class TrackerBenchmark {
+    // The updates of a run after the first one, the robot gets to about the end of the path by then
+    static final int UPDATES = 249;
+
+    @Param({"CLOSEST_POINT", "TRAJECTORY", "PURE_PURSUIT"})
+    public TrackerKind tracker;
+
+    @Param({"3", "6", "12"})
+    public int waypoints;
+
+    @Param({"0.001", "0.0001"})
+    public double dx;
+
+    private PathTracker pathTracker;
+    private double time = 0;
+
+    @Setup
+    public void setup() {
+        Path path = ReferencePaths.createPath(this.waypoints, this.dx);
+        Robot robot = new Robot(new Pose2d(path.getStartPoint(), new Rotation2d()), new Robot.Constants(5, ReferencePaths.PERIOD));
+        this.pathTracker = this.tracker.create(path, robot);
+        this.pathTracker.setClock(() -> this.time);
+    }
+
+    @Setup(Level.Invocation)
+    public void startRun() {
+        this.pathTracker.reset();
+        this.time += ReferencePaths.PERIOD;
+        this.pathTracker.update();
+    }
+
+    @Benchmark
+    public double update() {
+        for (int i = 0; i < UPDATES; i++) {
+            this.time += ReferencePaths.PERIOD;
+            this.pathTracker.update();
+        }
+        return this.pathTracker.getT();
+    }
+}
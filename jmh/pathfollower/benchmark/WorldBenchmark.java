@@ -0,0 +1,65 @@
+package pathfollower.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pathfollower.math.geometry.Pose2d;
+import pathfollower.math.geometry.Rotation2d;
+import pathfollower.path.Path;
+import pathfollower.path.Robot;
+import pathfollower.path.World;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of a world full of robots, each driven by its own tracker along its own copy of a path. The score
+ * is the time of one tick, the world runs faster than real time as long as it is below the period of
+ * {@value ReferencePaths#PERIOD} s. Like {@link TrackerBenchmark}, an invocation is a whole run of every robot
+ * and starting the runs over is done before it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(WorldBenchmark.TICKS)
+public class WorldBenchmark {
+    // The ticks of a run after the first one, the robots get to about the end of the path by then
+    static final int TICKS = 249;
+
+    @Param({"10", "100", "500"})
+    public int robots;
+
+    @Param({"CLOSEST_POINT", "TRAJECTORY", "PURE_PURSUIT"})
+    public TrackerKind tracker;
+
+    private World world;
+
+    @Setup
+    public void setup() {
+        this.world = new World(ReferencePaths.PERIOD);
+        for (int i = 0; i < this.robots; i++) {
+            Path path = ReferencePaths.createPath(6, 0.001);
+            Robot robot = new Robot(new Pose2d(path.getStartPoint(), new Rotation2d()), new Robot.Constants(5, ReferencePaths.PERIOD));
+            this.world.add(robot, this.tracker.create(path, robot));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.world.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void startRun() {
+        for (int i = 0; i < this.world.size(); i++) {
+            this.world.getTracker(i).reset();
+        }
+        this.world.step();
+    }
+
+    @Benchmark
+    public double tick() {
+        this.world.run(TICKS);
+        return this.world.getTime();
+    }
+}
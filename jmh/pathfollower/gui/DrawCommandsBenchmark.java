@@ -0,0 +1,75 @@
+package pathfollower.gui;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording and replaying one frame of points, the way the frame records {@link Frame#fillPoint}. The commands
+ * don't need a window, so they are replayed into an image and run without a display.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DrawCommandsBenchmark {
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 400;
+    private static final double PIXELS_IN_ONE_UNIT = 40;
+
+    @Param({"100", "1000"})
+    public int commands;
+
+    private final DrawCommands frame = new DrawCommands();
+    private double[] xs;
+    private double[] ys;
+
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setup() {
+        // The field with its zero in the center of the window, like the GUI
+        AffineTransform transform = new AffineTransform(1, 0, 0, -1, WIDTH / 2d, HEIGHT / 2d);
+        transform.scale(PIXELS_IN_ONE_UNIT, PIXELS_IN_ONE_UNIT);
+        this.frame.setTransform(transform);
+
+        Random random = new Random(this.commands);
+        this.xs = new double[this.commands];
+        this.ys = new double[this.commands];
+        for (int i = 0; i < this.commands; i++) {
+            this.xs[i] = (random.nextDouble() * 20) - 10;
+            this.ys[i] = (random.nextDouble() * 10) - 5;
+        }
+
+        this.image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        this.graphics = this.image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.graphics.dispose();
+    }
+
+    @Benchmark
+    public DrawCommands record() {
+        this.frame.clear();
+        for (int i = 0; i < this.commands; i++) {
+            this.frame.fillEllipse(Color.RED, this.xs[i] - 0.05, this.ys[i] - 0.05, 0.1, 0.1);
+        }
+        return this.frame;
+    }
+
+    @Benchmark
+    public BufferedImage replay() {
+        this.record();
+        this.frame.replay(this.graphics);
+        return this.image;
+    }
+}
@@ -0,0 +1,122 @@
+package pathfollower.benchmark;
+
+import pathfollower.path.pid.PIDController;
+import pathfollower.path.pid.PIDControllerBank;
+
+import java.util.Random;
+
+/**
+ * Checks that every controller of a {@link PIDControllerBank} gives exactly the same outputs as a
+ * {@link PIDController} with the same gains, continuous input and integrator range. Both are driven by the same
+ * random measurements and setpoints through every way of calculating, setting the setpoint and resetting.
+ *
+ * <p>Run with {@code java pathfollower.benchmark.PIDControllerBankCheck}, it exits with 1 if an output differs.
+ */
+public class PIDControllerBankCheck {
+    private static final int SIZE = 64;
+    private static final int CALCULATIONS = 10000;
+    private static final double PERIOD = 0.02;
+    private static final int PRINTED_MISMATCHES = 10;
+
+    private static int mismatches = 0;
+
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        PIDControllerBank bank = new PIDControllerBank(SIZE, 0, 0, 0, PERIOD);
+        PIDController[] controllers = new PIDController[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            double kp = random.nextDouble() * 5;
+            // Every other controller has no integral term, so the path that skips the integrator is checked too
+            double ki = i % 2 == 0 ? 0 : random.nextDouble();
+            double kd = random.nextDouble() * 0.5;
+            controllers[i] = new PIDController(kp, ki, kd, PERIOD);
+            bank.setPID(i, kp, ki, kd);
+
+            controllers[i].setIntegratorRange(-0.5 - i, 0.5 + i);
+            bank.setIntegratorRange(i, -0.5 - i, 0.5 + i);
+            controllers[i].setTolerance(0.1, 1);
+            bank.setTolerance(i, 0.1, 1);
+            if (i % 4 < 2) {
+                controllers[i].enableContinuousInput(0, 360);
+                bank.enableContinuousInput(i, 0, 360);
+            }
+        }
+
+        double[] measurements = new double[SIZE];
+        double[] setpoints = new double[SIZE];
+        double[] outputs = new double[SIZE];
+        for (int calculation = 0; calculation < CALCULATIONS; calculation++) {
+            for (int i = 0; i < SIZE; i++) {
+                measurements[i] = (random.nextDouble() * 720) - 360;
+                setpoints[i] = (random.nextDouble() * 720) - 360;
+            }
+
+            // Mixes the ways of giving the setpoint, with a reset once in a while
+            switch (calculation % 5) {
+                case 0, 1 -> {
+                    bank.calculate(measurements, setpoints, outputs);
+                    for (int i = 0; i < SIZE; i++) {
+                        compare(calculation, i, outputs[i], controllers[i].calculate(measurements[i], setpoints[i]));
+                    }
+                }
+                case 2 -> {
+                    bank.calculate(measurements, outputs);
+                    for (int i = 0; i < SIZE; i++) {
+                        compare(calculation, i, outputs[i], controllers[i].calculate(measurements[i]));
+                    }
+                }
+                case 3 -> {
+                    for (int i = 0; i < SIZE; i++) {
+                        bank.setSetpoint(i, setpoints[i]);
+                        controllers[i].setSetpoint(setpoints[i]);
+                        compare(calculation, i, bank.getVelocityError(i), controllers[i].getVelocityError());
+                    }
+                    bank.calculate(measurements, outputs);
+                    for (int i = 0; i < SIZE; i++) {
+                        compare(calculation, i, outputs[i], controllers[i].calculate(measurements[i]));
+                    }
+                }
+                default -> {
+                    if (calculation % 50 == 4) {
+                        bank.reset();
+                        for (PIDController controller : controllers) {
+                            controller.reset();
+                        }
+                    } else {
+                        int index = random.nextInt(SIZE);
+                        bank.reset(index);
+                        controllers[index].reset();
+                    }
+                    bank.calculate(measurements, setpoints, outputs);
+                    for (int i = 0; i < SIZE; i++) {
+                        compare(calculation, i, outputs[i], controllers[i].calculate(measurements[i], setpoints[i]));
+                    }
+                }
+            }
+
+            for (int i = 0; i < SIZE; i++) {
+                compare(calculation, i, bank.getPositionError(i), controllers[i].getPositionError());
+                compare(calculation, i, bank.getVelocityError(i), controllers[i].getVelocityError());
+                compare(calculation, i, bank.atSetpoint(i) ? 1 : 0, controllers[i].atSetpoint() ? 1 : 0);
+            }
+        }
+
+        System.out.printf("%-4s %d controllers, %d calculations, %d mismatches%n", mismatches == 0 ? "OK" : "FAIL",
+                SIZE, CALCULATIONS, mismatches);
+        if (mismatches != 0)
+            System.exit(1);
+    }
+
+    /**
+     * Compares a value of the bank to the same value of the controller bit for bit, and counts it if they
+     * differ. Only the first mismatches are printed.
+     */
+    private static void compare(int calculation, int index, double bank, double controller) {
+        if (Double.doubleToLongBits(bank) == Double.doubleToLongBits(controller))
+            return;
+        if (mismatches++ < PRINTED_MISMATCHES) {
+            System.out.printf("Calculation %d, controller %d: the bank gave %s but the controller gave %s%n",
+                    calculation, index, bank, controller);
+        }
+    }
+}
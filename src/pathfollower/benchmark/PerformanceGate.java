@@ -0,0 +1,83 @@
+package pathfollower.benchmark;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Runs every tracker headless along the reference path of {@link ReferenceRun} and fails when an update goes
+ * over its budgets: the bytes allocated by one update, the amount of times the path is evaluated in one update
+ * and, only when asked for, the p99 latency of an update. The allocation and the evaluations are the same on
+ * every machine, but the latency isn't, so it is only checked with {@code -l} on a machine the latency budgets
+ * were set on. The budgets are read from {@value #DEFAULT_BUDGETS}, which is kept next to the code, and a
+ * checked value without a budget fails too, so a new tracker or metric has to be given one. The measured values
+ * can be written as a baseline file with the same keys as the budgets, to set the budgets from.
+ *
+ * <p>Run with {@code java pathfollower.benchmark.PerformanceGate [-l] [-b budgets] [-o baseline]}, it exits
+ * with 1 if a budget is exceeded.
+ */
+public class PerformanceGate {
+    private static final String ALLOCATION = "allocated-bytes-per-update";
+    private static final String EVALUATIONS = "curve-evaluations-per-update";
+    private static final String LATENCY = "p99-update-nanos";
+
+    private static final String DEFAULT_BUDGETS = "performance-budgets.properties";
+
+    public static void main(String[] args) throws IOException {
+        File budgetsFile = new File(DEFAULT_BUDGETS);
+        File baseline = null;
+        boolean isCheckingLatency = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-b" -> budgetsFile = new File(args[++i]);
+                case "-o" -> baseline = new File(args[++i]);
+                case "-l" -> isCheckingLatency = true;
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i] + "!");
+            }
+        }
+
+        Properties budgets = new Properties();
+        try (Reader reader = new FileReader(budgetsFile)) {
+            budgets.load(reader);
+        }
+
+        Properties results = new Properties();
+        for (TrackerKind kind : TrackerKind.values()) {
+            ReferenceRun.Result result = ReferenceRun.measure(kind);
+            results.setProperty(getKey(kind, ALLOCATION), String.valueOf(result.allocatedBytes()));
+            results.setProperty(getKey(kind, EVALUATIONS), String.valueOf(result.evaluations()));
+            results.setProperty(getKey(kind, LATENCY), String.valueOf(result.p99Nanos()));
+        }
+        if (baseline != null) {
+            try (Writer writer = new FileWriter(baseline)) {
+                results.store(writer, "Measured by PerformanceGate, the budgets can be set from these values");
+            }
+        }
+
+        boolean isPassing = true;
+        for (String key : new TreeSet<>(results.stringPropertyNames())) {
+            double value = Double.parseDouble(results.getProperty(key));
+            double budget = Double.parseDouble(budgets.getProperty(key, "NaN"));
+            String status;
+            if (key.endsWith(LATENCY) && !isCheckingLatency) {
+                status = "SKIP";
+            } else {
+                boolean isWithinBudget = value <= budget;
+                isPassing &= isWithinBudget;
+                status = isWithinBudget ? "OK" : "FAIL";
+            }
+            System.out.printf("%-4s %-48s %14.1f / %14.1f%n", status, key, value, budget);
+        }
+        if (!isPassing)
+            System.exit(1);
+    }
+
+    private static String getKey(TrackerKind kind, String metric) {
+        return kind.name().toLowerCase().replace('_', '-') + "." + metric;
+    }
+}
@@ -0,0 +1,131 @@
+package pathfollower.benchmark;
+
+import pathfollower.math.geometry.Pose2d;
+import pathfollower.math.geometry.Rotation2d;
+import pathfollower.math.geometry.Translation2d;
+import pathfollower.path.Path;
+import pathfollower.path.PathTracker;
+import pathfollower.path.Robot;
+import pathfollower.path.path.BezierCurve;
+import pathfollower.path.telemetry.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The headless scenario the checks run: a tracker drives a robot along the reference path again and again on a
+ * simulated clock, and every run of updates is measured. Only the updates are measured, not starting the
+ * tracker over at the start of every run, and the first update of a run builds the motion profiles from the
+ * start, so it isn't measured either.
+ */
+final class ReferenceRun {
+    static final double PERIOD = 0.02;
+    static final Path.Constants PATH_CONSTANTS = new Path.Constants(4.5, 4.5, 0.5);
+    static final Robot.Constants ROBOT_CONSTANTS = new Robot.Constants(5, PERIOD);
+    static final List<Translation2d> REFERENCE_PATH = List.of(
+            new Translation2d(2, -3),
+            new Translation2d(-5, 2),
+            new Translation2d(-2, 1),
+            new Translation2d(-6, -2),
+            new Translation2d(3, 3),
+            new Translation2d(7, -1));
+
+    private static final int WARMUP_RUNS = 10;
+    private static final int RUNS = 10;
+    private static final int UPDATES_PER_RUN = 250;
+
+    // Getting the bean allocates, so it is only got once
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ReferenceRun() {}
+
+    /**
+     * Measures the updates of a tracker along the reference path.
+     *
+     * <p>The allocation is the one of the run that allocated the least, since the JIT can allocate once in a
+     * while in any run but an allocation in the update itself happens in every run. The updates are timed here
+     * and not by the tracker, so every kind of tracker is timed the same way, and the latency is the median of
+     * the p99 of every run, so a run the machine preempted doesn't count.
+     *
+     * @param kind The kind of tracker to measure
+     * @return What one update measured
+     */
+    static Result measure(TrackerKind kind) {
+        if (!THREADS.isThreadAllocatedMemoryEnabled())
+            throw new IllegalStateException("The JVM doesn't count the allocated bytes of a thread!");
+
+        CountingPath path = new CountingPath();
+        Robot robot = createRobot(path);
+        PathTracker tracker = kind.create(path, robot);
+        double[] time = {0};
+        tracker.setClock(() -> time[0]);
+        LatencyHistogram latency = new LatencyHistogram();
+        long[] latencies = new long[RUNS];
+
+        long allocated = Long.MAX_VALUE;
+        long evaluations = 0;
+        for (int run = 0; run < WARMUP_RUNS + RUNS; run++) {
+            tracker.reset();
+            time[0] += PERIOD;
+            tracker.update();
+
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long evaluationsBefore = path.evaluations;
+            for (int update = 1; update < UPDATES_PER_RUN; update++) {
+                time[0] += PERIOD;
+                long start = System.nanoTime();
+                tracker.update();
+                latency.record(System.nanoTime() - start);
+            }
+            if (run >= WARMUP_RUNS) {
+                allocated = Math.min(allocated, THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore);
+                evaluations += path.evaluations - evaluationsBefore;
+                latencies[run - WARMUP_RUNS] = latency.getPercentile(99);
+            }
+            latency.reset();
+        }
+        Arrays.sort(latencies);
+
+        long updates = UPDATES_PER_RUN - 1;
+        return new Result((double) allocated / updates, (double) evaluations / (RUNS * updates),
+                (latencies[(RUNS - 1) / 2] + latencies[RUNS / 2]) / 2d);
+    }
+
+    static Robot createRobot(Path path) {
+        return new Robot(new Pose2d(path.getStartPoint(), new Rotation2d()), ROBOT_CONSTANTS);
+    }
+
+    /**
+     * What one update of a tracker measured.
+     *
+     * @param allocatedBytes The bytes one update allocated
+     * @param evaluations The amount of times one update evaluated a coordinate of a point on the path
+     * @param p99Nanos The p99 latency of an update in nanoseconds
+     */
+    record Result(double allocatedBytes, double evaluations, double p99Nanos) {}
+
+    /**
+     * The reference path, counting every time one coordinate of a point on it is evaluated.
+     */
+    private static class CountingPath extends BezierCurve {
+        private long evaluations = 0;
+
+        private CountingPath() {
+            super(PATH_CONSTANTS, REFERENCE_PATH);
+        }
+
+        @Override
+        public double getX(double t) {
+            this.evaluations++;
+            return super.getX(t);
+        }
+
+        @Override
+        public double getY(double t) {
+            this.evaluations++;
+            return super.getY(t);
+        }
+    }
+}
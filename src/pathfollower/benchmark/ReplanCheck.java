@@ -0,0 +1,106 @@
+package pathfollower.benchmark;
+
+import pathfollower.math.geometry.Pose2d;
+import pathfollower.math.geometry.Translation2d;
+import pathfollower.path.Follower;
+import pathfollower.path.Path;
+import pathfollower.path.Robot;
+import pathfollower.path.path.BezierCurve;
+
+import java.util.List;
+
+/**
+ * Checks that replanning switches a {@link Follower} to the new path without a jump. The follower drives along
+ * the reference path on a simulated clock and replans on the way to a straight path ahead of the robot, which
+ * lets it keep its speed, so the follower alone is checked and not the planner. The update that switches has to
+ * keep the setpoint at the robot and keep the velocity of the robot, and a replan that is built later than the
+ * budget has to be dropped.
+ *
+ * <p>Run with {@code java pathfollower.benchmark.ReplanCheck}, it exits with 1 if a check fails.
+ */
+public class ReplanCheck {
+    private static final int UPDATES_BEFORE_REPLAN = 60;
+    // Long enough to stop on from the top speed
+    private static final double PLANNED_LENGTH = 5;
+    // The setpoint of the new path starts at the predicted pose, so it is at most one period of driving away
+    private static final double MAX_SETPOINT_DISTANCE = ReferenceRun.ROBOT_CONSTANTS.maxVel() * ReferenceRun.PERIOD;
+    // The planned path lets the robot keep its velocity, so only the correction of the controllers changes it,
+    // and that is well below what the robot can accelerate by in one period
+    private static final double MAX_VELOCITY_CHANGE = ReferenceRun.PATH_CONSTANTS.maxAccel() * ReferenceRun.PERIOD / 2;
+    private static final double EPSILON = 1e-6;
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+        for (TrackerKind kind : List.of(TrackerKind.CLOSEST_POINT, TrackerKind.TRAJECTORY)) {
+            check(kind);
+        }
+        if (failures != 0)
+            System.exit(1);
+    }
+
+    private static void check(TrackerKind kind) throws InterruptedException {
+        Path path = new BezierCurve(ReferenceRun.PATH_CONSTANTS, ReferenceRun.REFERENCE_PATH);
+        Robot robot = ReferenceRun.createRobot(path);
+        Follower follower = (Follower) kind.create(path, robot);
+        double[] time = {0};
+        follower.setClock(() -> time[0]);
+        follower.reset();
+
+        for (int update = 0; update < UPDATES_BEFORE_REPLAN; update++) {
+            time[0] += ReferenceRun.PERIOD;
+            follower.update();
+        }
+
+        follower.replan(ReplanCheck::plan);
+        awaitReplan(follower);
+
+        // The update that switches to the new path
+        Translation2d velocityBefore = new Translation2d(robot.getVelocityX(), robot.getVelocityY());
+        time[0] += ReferenceRun.PERIOD;
+        follower.update();
+        Translation2d velocityAfter = new Translation2d(robot.getVelocityX(), robot.getVelocityY());
+
+        Path replanned = follower.getPath();
+        double setpointDistance = follower.getState().pose().getTranslation()
+                .getDistance(new Translation2d(robot.getX(), robot.getY()));
+        double velocityChange = velocityAfter.getDistance(velocityBefore);
+        report(kind, "switched", replanned != path, "path " + (replanned != path ? "replaced" : "kept"));
+        report(kind, "position", setpointDistance <= MAX_SETPOINT_DISTANCE + EPSILON,
+                String.format("setpoint %.3f m from the robot, at most %.3f m", setpointDistance, MAX_SETPOINT_DISTANCE));
+        report(kind, "velocity", velocityChange <= MAX_VELOCITY_CHANGE + EPSILON,
+                String.format("velocity changed by %.3f m/s, at most %.3f m/s", velocityChange, MAX_VELOCITY_CHANGE));
+
+        // A replan that is built later than the budget starts too far behind the robot, so it is dropped
+        follower.replan(ReplanCheck::plan);
+        awaitReplan(follower);
+        time[0] += follower.getReplanBudget() + ReferenceRun.PERIOD;
+        follower.update();
+        report(kind, "late", follower.getPath() == replanned && !follower.hasReplan(),
+                "late replan " + (follower.getPath() == replanned ? "dropped" : "switched to"));
+    }
+
+    /**
+     * Plans a straight path from the pose in the direction of the velocity, or of the heading while standing.
+     */
+    private static Path plan(Pose2d pose, Translation2d velocity) {
+        Translation2d start = pose.getTranslation();
+        Translation2d direction = velocity.getNorm() > 1e-6
+                ? velocity.div(velocity.getNorm()) : new Translation2d(1, pose.getRotation());
+        return new BezierCurve(ReferenceRun.PATH_CONSTANTS, List.of(start, start.plus(direction.times(PLANNED_LENGTH))));
+    }
+
+    // The planner runs on the replanner thread in real time while the simulated clock stands still, and a
+    // planner that fails leaves nothing to wait for
+    private static void awaitReplan(Follower follower) throws InterruptedException {
+        while (follower.isReplanning() && !follower.hasReplan()) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void report(TrackerKind kind, String check, boolean passed, String message) {
+        if (!passed)
+            failures++;
+        System.out.printf("%-4s %-13s %-8s %s%n", passed ? "OK" : "FAIL", kind, check, message);
+    }
+}
@@ -0,0 +1,47 @@
+package pathfollower.benchmark;
+
+import pathfollower.path.Follower;
+import pathfollower.path.Path;
+import pathfollower.path.PathTracker;
+import pathfollower.path.PosePredictor;
+import pathfollower.path.PurePursuitFollower;
+import pathfollower.path.Robot;
+import pathfollower.path.pid.PIDPreset;
+
+/**
+ * The trackers the checks and the benchmarks drive, each created with the same constants and the same latency
+ * compensation, so they are compared on the same terms.
+ */
+public enum TrackerKind {
+    CLOSEST_POINT,
+    TRAJECTORY,
+    PURE_PURSUIT;
+
+    public static final Follower.Constants FOLLOWER_CONSTANTS = new Follower.Constants(0, 90,
+            new PIDPreset(3, 0, 0, 1, 10),
+            new PIDPreset(2, 0, 0, 5, 10));
+    public static final PurePursuitFollower.Constants PURE_PURSUIT_CONSTANTS = new PurePursuitFollower.Constants(0, 90,
+            0.3, 1.5, 0.3,
+            new PIDPreset(2, 0, 0, 5, 10));
+
+    /**
+     * Creates a tracker of this kind. The output of a loop is applied until the next one, so the pose of the
+     * robot is predicted forward by one period.
+     *
+     * @param path The path to drive along
+     * @param robot The robot to drive
+     * @return The tracker, started with {@link PathTracker#reset()} before it is updated
+     */
+    public PathTracker create(Path path, Robot robot) {
+        PathTracker tracker = switch (this) {
+            case CLOSEST_POINT, TRAJECTORY -> {
+                Follower follower = new Follower(path, robot, FOLLOWER_CONSTANTS);
+                follower.setMode(Follower.Mode.valueOf(this.name()));
+                yield follower;
+            }
+            case PURE_PURSUIT -> new PurePursuitFollower(path, robot, PURE_PURSUIT_CONSTANTS);
+        };
+        tracker.setPredictor(new PosePredictor(robot.getConstants().period()));
+        return tracker;
+    }
+}
@@ -0,0 +1,325 @@
+package pathfollower.gui;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A list of draw commands kept in primitive arrays, so recording a frame doesn't allocate a lambda for every
+ * primitive. Every command is its opcode, the index of its color and its coordinates, one after the other in
+ * one double array, and the colors, fonts, strokes, shapes, texts and images are kept once each in an object
+ * array. The arrays grow to the biggest frame and are reused for every frame after it.
+ *
+ * <p>The geometry is kept in field units and drawn through the transform from the field to the screen, which
+ * is set on the graphics once for the whole list. Only the texts and the images are drawn in pixels, at the
+ * point the transform moves their field position to, so they aren't scaled or flipped with the field.
+ */
+class DrawCommands {
+    private static final int FILL_RECT = 0;
+    private static final int DRAW_RECT = 1;
+    private static final int FILL_ELLIPSE = 2;
+    private static final int DRAW_ELLIPSE = 3;
+    private static final int FILL_POLYGON = 4;
+    private static final int DRAW_POLYGON = 5;
+    private static final int DRAW_POLYLINE = 6;
+    private static final int DRAW_LINE = 7;
+    private static final int DRAW_THICK_LINE = 8;
+    private static final int FILL_SHAPE = 9;
+    private static final int DRAW_SHAPE = 10;
+    private static final int DRAW_STRING = 11;
+    private static final int DRAW_IMAGE = 12;
+
+    private double[] values = new double[1024];
+    private int size = 0;
+
+    private Object[] objects = new Object[64];
+    private int objectCount = 0;
+    private final Map<Object, Integer> objectIndices = new HashMap<>();
+
+    private final AffineTransform transform = new AffineTransform();
+    // A line one pixel wide however much the transform scales it, made again only when the zoom changes
+    private Stroke hairline = new BasicStroke(1);
+    private double hairlineScale = 1;
+
+    // The shapes the commands are drawn with, only used while replaying
+    private final Rectangle2D.Double rectangle = new Rectangle2D.Double();
+    private final Ellipse2D.Double ellipse = new Ellipse2D.Double();
+    private final Line2D.Double line = new Line2D.Double();
+    private final Path2D.Double polygon = new Path2D.Double();
+    private final Point2D.Double point = new Point2D.Double();
+
+    /**
+     * Sets the transform from the field to the screen the whole list is drawn with.
+     *
+     * @param transform The transform from field units to pixels
+     */
+    public void setTransform(AffineTransform transform) {
+        this.transform.setTransform(transform);
+        double scale = Math.abs(transform.getScaleX());
+        if (scale != this.hairlineScale && scale != 0) {
+            this.hairline = new BasicStroke((float) (1 / scale));
+            this.hairlineScale = scale;
+        }
+    }
+
+    public void fillRect(Color color, double x, double y, double width, double height) {
+        this.addBounds(FILL_RECT, color, x, y, width, height);
+    }
+
+    public void drawRect(Color color, double x, double y, double width, double height) {
+        this.addBounds(DRAW_RECT, color, x, y, width, height);
+    }
+
+    public void fillEllipse(Color color, double x, double y, double width, double height) {
+        this.addBounds(FILL_ELLIPSE, color, x, y, width, height);
+    }
+
+    public void drawEllipse(Color color, double x, double y, double width, double height) {
+        this.addBounds(DRAW_ELLIPSE, color, x, y, width, height);
+    }
+
+    private void addBounds(int opcode, Color color, double x, double y, double width, double height) {
+        this.ensureCapacity(6);
+        this.values[this.size++] = opcode;
+        this.values[this.size++] = this.intern(color);
+        this.values[this.size++] = x;
+        this.values[this.size++] = y;
+        this.values[this.size++] = width;
+        this.values[this.size++] = height;
+    }
+
+    /**
+     * Starts a polygon or a polyline, its points are added after it with {@link #addPoint}.
+     *
+     * @param closed Whether the last point connects back to the first one
+     * @param filled Whether the polygon is filled, only for a closed polygon
+     * @param points The amount of points
+     */
+    public void startPolygon(Color color, boolean closed, boolean filled, int points) {
+        this.ensureCapacity(3 + (2 * points));
+        this.values[this.size++] = closed ? (filled ? FILL_POLYGON : DRAW_POLYGON) : DRAW_POLYLINE;
+        this.values[this.size++] = this.intern(color);
+        this.values[this.size++] = points;
+    }
+
+    public void addPoint(double x, double y) {
+        this.values[this.size++] = x;
+        this.values[this.size++] = y;
+    }
+
+    public void drawLine(Color color, double x1, double y1, double x2, double y2) {
+        this.ensureCapacity(6);
+        this.values[this.size++] = DRAW_LINE;
+        this.values[this.size++] = this.intern(color);
+        this.values[this.size++] = x1;
+        this.values[this.size++] = y1;
+        this.values[this.size++] = x2;
+        this.values[this.size++] = y2;
+    }
+
+    /**
+     * Draws a line with a stroke in field units.
+     */
+    public void drawThickLine(Color color, Stroke stroke, double x1, double y1, double x2, double y2) {
+        this.ensureCapacity(7);
+        this.values[this.size++] = DRAW_THICK_LINE;
+        this.values[this.size++] = this.intern(color);
+        this.values[this.size++] = this.intern(stroke);
+        this.values[this.size++] = x1;
+        this.values[this.size++] = y1;
+        this.values[this.size++] = x2;
+        this.values[this.size++] = y2;
+    }
+
+    /**
+     * Draws a shape in field units. The shape is drawn when the list is replayed, so it must not change until then.
+     *
+     * @param stroke The stroke of the outline in field units, null for a line one pixel wide
+     */
+    public void drawShape(Color color, Stroke stroke, Shape shape, boolean filled) {
+        this.ensureCapacity(4);
+        this.values[this.size++] = filled ? FILL_SHAPE : DRAW_SHAPE;
+        this.values[this.size++] = this.intern(color);
+        this.values[this.size++] = this.intern(stroke);
+        this.values[this.size++] = this.intern(shape);
+    }
+
+    /**
+     * Draws a text in pixels, with the start of its baseline at a point in field units.
+     */
+    public void drawString(Color color, Font font, String text, double x, double y) {
+        this.ensureCapacity(6);
+        this.values[this.size++] = DRAW_STRING;
+        this.values[this.size++] = this.intern(color);
+        this.values[this.size++] = this.intern(font);
+        this.values[this.size++] = this.intern(text);
+        this.values[this.size++] = x;
+        this.values[this.size++] = y;
+    }
+
+    /**
+     * Draws an image in pixels, in its own size if the width or the height is negative.
+     */
+    public void drawImage(Image image, int x, int y, int width, int height) {
+        this.ensureCapacity(7);
+        this.values[this.size++] = DRAW_IMAGE;
+        this.values[this.size++] = this.intern(null);
+        this.values[this.size++] = this.intern(image);
+        this.values[this.size++] = x;
+        this.values[this.size++] = y;
+        this.values[this.size++] = width;
+        this.values[this.size++] = height;
+    }
+
+    /**
+     * Draws every command in order.
+     *
+     * @param g The graphics to draw on, in pixels
+     */
+    public void replay(Graphics g) {
+        Graphics2D graphics = (Graphics2D) g;
+        AffineTransform screen = graphics.getTransform();
+        Stroke defaultStroke = graphics.getStroke();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.transform(this.transform);
+        AffineTransform field = graphics.getTransform();
+        graphics.setStroke(this.hairline);
+
+        double[] values = this.values;
+        int i = 0;
+        while (i < this.size) {
+            int opcode = (int) values[i];
+            Color color = (Color) this.objects[(int) values[i + 1]];
+            if (color != null)
+                graphics.setColor(color);
+            i += 2;
+
+            switch (opcode) {
+                case FILL_RECT, DRAW_RECT -> {
+                    this.rectangle.setRect(values[i], values[i + 1], values[i + 2], values[i + 3]);
+                    if (opcode == FILL_RECT)
+                        graphics.fill(this.rectangle);
+                    else
+                        graphics.draw(this.rectangle);
+                }
+                case FILL_ELLIPSE, DRAW_ELLIPSE -> {
+                    this.ellipse.setFrame(values[i], values[i + 1], values[i + 2], values[i + 3]);
+                    if (opcode == FILL_ELLIPSE)
+                        graphics.fill(this.ellipse);
+                    else
+                        graphics.draw(this.ellipse);
+                }
+                case FILL_POLYGON, DRAW_POLYGON, DRAW_POLYLINE -> {
+                    int points = (int) values[i];
+                    this.polygon.reset();
+                    for (int point = 0; point < points; point++) {
+                        double x = values[i + 1 + (2 * point)];
+                        double y = values[i + 2 + (2 * point)];
+                        if (point == 0)
+                            this.polygon.moveTo(x, y);
+                        else
+                            this.polygon.lineTo(x, y);
+                    }
+                    if (opcode != DRAW_POLYLINE)
+                        this.polygon.closePath();
+                    if (opcode == FILL_POLYGON)
+                        graphics.fill(this.polygon);
+                    else
+                        graphics.draw(this.polygon);
+                    i += 1 + (2 * points);
+                    continue;
+                }
+                case DRAW_LINE -> {
+                    this.line.setLine(values[i], values[i + 1], values[i + 2], values[i + 3]);
+                    graphics.draw(this.line);
+                }
+                case DRAW_THICK_LINE -> {
+                    this.line.setLine(values[i + 1], values[i + 2], values[i + 3], values[i + 4]);
+                    graphics.setStroke((Stroke) this.objects[(int) values[i]]);
+                    graphics.draw(this.line);
+                    graphics.setStroke(this.hairline);
+                }
+                case FILL_SHAPE -> graphics.fill((Shape) this.objects[(int) values[i + 1]]);
+                case DRAW_SHAPE -> {
+                    Stroke stroke = (Stroke) this.objects[(int) values[i]];
+                    if (stroke != null)
+                        graphics.setStroke(stroke);
+                    graphics.draw((Shape) this.objects[(int) values[i + 1]]);
+                    graphics.setStroke(this.hairline);
+                }
+                case DRAW_STRING -> {
+                    this.point.setLocation(values[i + 2], values[i + 3]);
+                    this.transform.transform(this.point, this.point);
+                    graphics.setTransform(screen);
+                    graphics.setFont((Font) this.objects[(int) values[i]]);
+                    graphics.drawString((String) this.objects[(int) values[i + 1]], (float) this.point.x, (float) this.point.y);
+                    graphics.setTransform(field);
+                }
+                case DRAW_IMAGE -> {
+                    Image image = (Image) this.objects[(int) values[i]];
+                    int x = (int) values[i + 1];
+                    int y = (int) values[i + 2];
+                    graphics.setTransform(screen);
+                    if (values[i + 3] < 0 || values[i + 4] < 0)
+                        graphics.drawImage(image, x, y, null);
+                    else
+                        graphics.drawImage(image, x, y, (int) values[i + 3], (int) values[i + 4], null);
+                    graphics.setTransform(field);
+                }
+                default -> throw new IllegalStateException("Unknown draw command " + opcode + "!");
+            }
+            i += getLength(opcode);
+        }
+
+        graphics.setTransform(screen);
+        graphics.setStroke(defaultStroke);
+    }
+
+    /**
+     * Returns the amount of values after the opcode and the color, for the commands of a fixed length.
+     */
+    private static int getLength(int opcode) {
+        return switch (opcode) {
+            case FILL_SHAPE, DRAW_SHAPE -> 2;
+            case DRAW_THICK_LINE, DRAW_IMAGE -> 5;
+            default -> 4;
+        };
+    }
+
+    public void clear() {
+        this.size = 0;
+        // Drops the texts, the shapes and the images of the frame so they can be collected
+        Arrays.fill(this.objects, 0, this.objectCount, null);
+        this.objectCount = 0;
+        this.objectIndices.clear();
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    private int intern(Object object) {
+        Integer index = this.objectIndices.get(object);
+        if (index != null)
+            return index;
+
+        if (this.objectCount == this.objects.length)
+            this.objects = Arrays.copyOf(this.objects, this.objectCount * 2);
+        this.objects[this.objectCount] = object;
+        this.objectIndices.put(object, this.objectCount);
+        return this.objectCount++;
+    }
+
+    private void ensureCapacity(int values) {
+        if (this.size + values > this.values.length)
+            this.values = Arrays.copyOf(this.values, Math.max(this.size + values, this.values.length * 2));
+    }
+}
@@ -13,4 +13,11 @@ public interface DrawType {
     default int convertHeight(double height) {
         return (int) height;
     }
+
+    /**
+     * @return Where the point a shape with a size is drawn at is on it, 0 for its top left corner and 0.5 for its center
+     */
+    default double getAlignment() {
+        return 0;
+    }
 }
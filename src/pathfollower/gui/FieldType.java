@@ -2,6 +2,8 @@ package pathfollower.gui;
 
 import pathfollower.math.geometry.Dimension2d;
 
+import java.awt.geom.AffineTransform;
+
 public interface FieldType {
     default int convertX(double x, Dimension2d dimension) {
         return (int) x;
@@ -19,5 +21,16 @@ public interface FieldType {
         return convertPixelsToUnits(pixels + 30);
     }
 
+    /**
+     * Returns the same mapping as {@link #convertX} and {@link #convertY} as one transform, without rounding to
+     * whole pixels.
+     *
+     * @param dimension The size of the window in pixels
+     * @return The transform from field pixels to window pixels
+     */
+    default AffineTransform getFieldTransform(Dimension2d dimension) {
+        return new AffineTransform();
+    }
+
     double convertPixelsToUnits(double pixels);
 }
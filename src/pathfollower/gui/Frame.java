@@ -2,14 +2,22 @@ package pathfollower.gui;
 
 import pathfollower.math.geometry.Dimension2d;
 import pathfollower.math.geometry.Translation2d;
+import pathfollower.path.telemetry.LatencyHistogram;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.ArrayList;
-import java.util.ConcurrentModificationException;
-import java.util.List;
-import java.util.function.Consumer;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 @SuppressWarnings(value = "unused")
 public abstract class Frame extends JFrame implements FieldType, DrawType {
@@ -17,6 +25,21 @@ public abstract class Frame extends JFrame implements FieldType, DrawType {
     private final Dimension2d dimension;
 
     private double pixelsInOneUnit;
+    private final AffineTransform transform = new AffineTransform();
+
+    // The commands are recorded into the next frame of the panel, or into a layer while it is rendered
+    private DrawCommands commands;
+    // Fonts and strokes by their size, so drawing text and thick lines doesn't create them every frame
+    private final Map<Integer, Font> fonts = new HashMap<>();
+    private final Map<Float, Stroke> strokes = new HashMap<>();
+    private final Map<String, Layer> layers = new HashMap<>();
+
+    // Only set while rendering actively, the times between the shown frames are only written by the renderer
+    private Thread renderer;
+    private double renderingRate = 0;
+    private final LatencyHistogram frameTimes = new LatencyHistogram();
+    private volatile long renderedFrames = 0;
+    private volatile long missedFrames = 0;
 
     public Frame(String title, Dimension2d frameSize, Color background, double pixelsInOneUnit) {
         super(title);
@@ -25,6 +48,8 @@ public abstract class Frame extends JFrame implements FieldType, DrawType {
 
         this.panel = new Panel();
         this.add(this.panel);
+        this.commands = this.panel.back.commands;
+        this.updateTransform();
 
         this.addKeyListener(new KeyHandler());
         this.addMouseListener(new MouseHandler());
@@ -58,6 +83,28 @@ public abstract class Frame extends JFrame implements FieldType, DrawType {
 
     protected void setPixelsInOneUnit(double pixelsInOneUnit) {
         this.pixelsInOneUnit = pixelsInOneUnit;
+        this.updateTransform();
+    }
+
+    /**
+     * Builds the transform from field units to pixels again, from the zoom and the field type. The whole frame
+     * is drawn with the transform it has when the frame is shown.
+     */
+    private void updateTransform() {
+        this.transform.setTransform(getFieldTransform(this.dimension));
+        this.transform.scale(this.pixelsInOneUnit, this.pixelsInOneUnit);
+        this.commands.setTransform(this.transform);
+    }
+
+    /**
+     * @return The transform from field units to pixels the frame is drawn with
+     */
+    public AffineTransform getFieldTransform() {
+        return new AffineTransform(this.transform);
+    }
+
+    protected double getPixelsInOneUnit() {
+        return pixelsInOneUnit;
     }
 
     @Override
@@ -65,210 +112,354 @@ public abstract class Frame extends JFrame implements FieldType, DrawType {
         return pixels / this.pixelsInOneUnit;
     }
 
-    private int convertXWithSize(double x, double size, Dimension2d dimension) {
-        return convertX(convertXWithSize(x, size), dimension);
+    /**
+     * Returns the lowest x of a shape with a size drawn at a point, by where the draw type puts the point on it.
+     */
+    private double getMinX(double x, double width) {
+        return x - (width * getAlignment());
     }
 
-    private int convertYWithSize(double y, double size, Dimension2d dimension) {
-        return convertY(convertYWithSize(y, size), dimension);
+    /**
+     * Returns the lowest y of a shape with a size drawn at a point, by where the draw type puts the point on it.
+     * The top of the screen is the highest y when the field type turns the y axis up.
+     */
+    private double getMinY(double y, double height) {
+        if (this.transform.getScaleY() < 0)
+            return (y + (height * getAlignment())) - height;
+        return y - (height * getAlignment());
     }
 
     public void clearFrame() {
-        this.panel.graphics.clear();
+        this.panel.back.commands.clear();
         this.update();
     }
 
+    /**
+     * Shows everything drawn since the last frame as a complete frame, and starts a new empty frame. Until the
+     * next call the window keeps painting this frame.
+     */
+    public void showFrame() {
+        this.panel.present();
+        this.commands = this.panel.back.commands;
+        this.commands.setTransform(this.transform);
+        if (this.renderer == null)
+            this.repaint();
+    }
+
+    /**
+     * Draws the frames on a thread of their own instead of when Swing repaints the window. The window is
+     * drawn straight to a buffer strategy at a steady rate, always with the last frame shown by
+     * {@link #showFrame()}, so the thread that draws the frames can run at any other rate.
+     *
+     * @param fps The frames per second to draw, zero to draw at the refresh rate of the screen
+     */
+    public void startRendering(double fps) {
+        if (this.renderer != null)
+            return;
+        if (fps <= 0) {
+            int refreshRate = this.getGraphicsConfiguration().getDevice().getDisplayMode().getRefreshRate();
+            fps = refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : refreshRate;
+        }
+        this.renderingRate = fps;
+        long period = (long) (1e9 / fps);
+
+        Canvas canvas = new Canvas();
+        canvas.setIgnoreRepaint(true);
+        canvas.setBackground(this.getBackground());
+        CanvasHandler handler = new CanvasHandler(canvas);
+        canvas.addKeyListener(handler);
+        canvas.addMouseListener(handler);
+        canvas.addMouseMotionListener(handler);
+        canvas.addMouseWheelListener(handler);
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                this.remove(this.panel);
+                this.add(canvas);
+                this.revalidate();
+                canvas.createBufferStrategy(2);
+                canvas.requestFocus();
+            });
+        } catch (InterruptedException | InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+
+        this.renderer = new Thread(() -> this.render(canvas, period), "Renderer");
+        this.renderer.setDaemon(true);
+        this.renderer.start();
+    }
+
+    private void render(Canvas canvas, long period) {
+        BufferStrategy strategy = canvas.getBufferStrategy();
+        long deadline = System.nanoTime();
+        long lastFrame = deadline;
+        while (true) {
+            DrawCommands commands = this.panel.takeFrame();
+            // The buffers can be lost to the screen at any time, and are then drawn again
+            do {
+                do {
+                    Graphics graphics = strategy.getDrawGraphics();
+                    try {
+                        graphics.setColor(canvas.getBackground());
+                        graphics.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+                        commands.replay(graphics);
+                    } finally {
+                        graphics.dispose();
+                    }
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+
+            long now = System.nanoTime();
+            this.frameTimes.record(now - lastFrame);
+            if (now - lastFrame > period + (period / 2))
+                this.missedFrames++;
+            this.renderedFrames++;
+            lastFrame = now;
+
+            // A late frame delays the frames after it instead of drawing the missed ones in a burst
+            deadline = Math.max(deadline + period, now);
+            LockSupport.parkNanos(deadline - System.nanoTime());
+        }
+    }
+
+    public boolean isRendering() {
+        return this.renderer != null;
+    }
+
+    /**
+     * @return The frames per second drawn while rendering actively, zero if not rendering actively
+     */
+    public double getRenderingRate() {
+        return renderingRate;
+    }
+
+    /**
+     * Returns the times between the frames drawn while rendering actively, which are the period of the rendering
+     * when the frames are paced evenly. The renderer records into it, so other threads read it through
+     * {@link LatencyHistogram#snapshot(LatencyHistogram)}.
+     *
+     * @return The histogram of the times between the frames in nanoseconds
+     */
+    public LatencyHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    public long getRenderedFrames() {
+        return renderedFrames;
+    }
+
+    /**
+     * Returns the amount of frames drawn at least half a period late while rendering actively.
+     *
+     * @return The amount of late frames
+     */
+    public long getMissedFrames() {
+        return missedFrames;
+    }
+
     public void update() {
 //        this.repaint();
     }
 
+    /**
+     * Draws a layer that only changes when its inputs change, like the background. The first time, and every
+     * time the inputs change, the layer is rendered into an image, and every other time only the image is drawn.
+     *
+     * @param name The name of the layer
+     * @param inputs Everything the layer depends on, compared with equals
+     * @param drawer Draws the layer with the draw methods of the frame
+     */
+    public void drawLayer(String name, Object inputs, Runnable drawer) {
+        Layer layer = this.layers.get(name);
+        if (layer == null || !Objects.equals(layer.inputs(), inputs)) {
+            DrawCommands commands = this.commands;
+            DrawCommands layerCommands = new DrawCommands();
+            layerCommands.setTransform(this.transform);
+            this.commands = layerCommands;
+            try {
+                drawer.run();
+            } finally {
+                this.commands = commands;
+            }
+
+            BufferedImage image = new BufferedImage(this.dimension.getX(), this.dimension.getY(), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            layerCommands.replay(graphics);
+            graphics.dispose();
+
+            layer = new Layer(inputs, image);
+            this.layers.put(name, layer);
+        }
+
+        this.commands.drawImage(layer.image(), 0, 0, -1, -1);
+        this.update();
+    }
+
+    /**
+     * Renders a layer again the next time it is drawn, even if its inputs didn't change.
+     *
+     * @param name The name of the layer
+     */
+    public void invalidateLayer(String name) {
+        this.layers.remove(name);
+    }
+
     public Dimension2d getDimension() {
         return dimension;
     }
 
+    /**
+     * @return The part of the field the window shows, in field units
+     */
+    public Rectangle2D getViewport() {
+        Rectangle2D window = new Rectangle2D.Double(0, 0, this.dimension.getX(), this.dimension.getY());
+        try {
+            return this.transform.createInverse().createTransformedShape(window).getBounds2D();
+        } catch (NoninvertibleTransformException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public Translation2d getDimensionWithUnits() {
         return new Translation2d(convertPixelsToUnits(this.dimension.getX()), convertPixelsToUnits(this.dimension.getY()));
     }
 
     public void draw(double x, double y, Color color) {
-        double X = convertUnits(x);
-        double Y = convertUnits(y);
+        double size = convertPixelsToUnits(1);
 
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.fillRect(convertX(X, this.dimension), convertY(Y, this.dimension), 1, 1);
-        });
+        this.commands.fillRect(color, this.getMinX(x, size), this.getMinY(y, size), size, size);
         this.update();
     }
 
     public void drawPolygon(Color color, Translation2d... translations) {
-        int[] x = new int[translations.length];
-        int[] y = new int[translations.length];
-        for (int i = 0; i < translations.length; i++) {
-            x[i] = convertX(convertUnits(translations[i].getX()), this.dimension);
-            y[i] = convertY(convertUnits(translations[i].getY()), this.dimension);
-        }
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.drawPolygon(x, y, translations.length);
-        });
+        this.addPolygon(color, true, false, translations);
         this.update();
     }
 
     public void drawConnectedPoints(Color color, Translation2d... translations) {
-        int[] x = new int[translations.length];
-        int[] y = new int[translations.length];
-        for (int i = 0; i < translations.length; i++) {
-            x[i] = convertX(convertUnits(translations[i].getX()), this.dimension);
-            y[i] = convertY(convertUnits(translations[i].getY()), this.dimension);
-        }
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.drawPolyline(x, y, translations.length);
-        });
+        this.addPolygon(color, false, false, translations);
         this.update();
     }
 
     public void fillPolygon(Color color, Translation2d... translations) {
-        int[] x = new int[translations.length];
-        int[] y = new int[translations.length];
-        for (int i = 0; i < translations.length; i++) {
-            x[i] = convertX(convertUnits(translations[i].getX()), this.dimension);
-            y[i] = convertY(convertUnits(translations[i].getY()), this.dimension);
+        this.addPolygon(color, true, true, translations);
+        this.update();
+    }
+
+    private void addPolygon(Color color, boolean closed, boolean filled, Translation2d... translations) {
+        this.commands.startPolygon(color, closed, filled, translations.length);
+        for (Translation2d translation : translations) {
+            this.commands.addPoint(translation.getX(), translation.getY());
         }
+    }
+
+    /**
+     * Draws the outline of a shape in field units. The shape is drawn with the frame, so it must not change until
+     * the frame is shown.
+     *
+     * @param shape The shape in field units
+     * @param color The color of the outline
+     */
+    public void drawShape(Shape shape, Color color) {
+        this.commands.drawShape(color, null, shape, false);
+        this.update();
+    }
+
+    /**
+     * Draws the outline of a shape in field units with a thick line, with round ends and corners. The shape is
+     * drawn with the frame, so it must not change until the frame is shown.
+     *
+     * @param shape The shape in field units
+     * @param width The width of the line in field units
+     * @param color The color of the outline
+     */
+    public void drawShape(Shape shape, double width, Color color) {
+        this.commands.drawShape(color, this.getStroke((float) width), shape, false);
+        this.update();
+    }
 
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.fillPolygon(x, y, translations.length);
-        });
+    /**
+     * Fills a shape in field units. The shape is drawn with the frame, so it must not change until the frame is
+     * shown.
+     *
+     * @param shape The shape in field units
+     * @param color The color of the shape
+     */
+    public void fillShape(Shape shape, Color color) {
+        this.commands.drawShape(color, null, shape, true);
         this.update();
     }
 
     public void drawRect(double x, double y, int width, int height, Color color) {
-        double X = convertUnits(x);
-        double Y = convertUnits(y);
+        double newWidth = convertPixelsToUnits(width);
+        double newHeight = convertPixelsToUnits(height);
 
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.drawRect(convertXWithSize(X, width, dimension), convertYWithSize(Y, height, dimension), convertWidth(width), convertHeight(height));
-        });
+        this.commands.drawRect(color, this.getMinX(x, newWidth), this.getMinY(y, newHeight), newWidth, newHeight);
     }
 
     public void drawRect(Translation2d translation1, Translation2d translation2, Color color) {
-        Translation2d newTranslation1 = new Translation2d(convertUnits(translation1.getX()), convertUnits(translation1.getY()));
-        Translation2d newTranslation2 = new Translation2d(convertUnits(translation2.getX()), convertUnits(translation2.getY()));
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.drawRect(convertX(newTranslation1.getX(), this.dimension), convertY(newTranslation1.getY(), this.dimension),
-                    convertWidth(newTranslation2.getX() - newTranslation1.getX()), convertHeight(newTranslation2.getY() - newTranslation1.getY()));
-        });
+        this.commands.drawRect(color,
+                Math.min(translation1.getX(), translation2.getX()), Math.min(translation1.getY(), translation2.getY()),
+                Math.abs(translation2.getX() - translation1.getX()), Math.abs(translation2.getY() - translation1.getY()));
         this.update();
     }
 
     public void fillRect(double x, double y, double width, double height, Color color) {
-        double X = convertUnits(x);
-        double Y = convertUnits(y);
-        double newWidth = convertUnits(width);
-        double newHeight = convertUnits(height);
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.fillRect(convertXWithSize(X, newWidth, dimension), convertYWithSize(Y, newHeight, dimension), convertWidth(newWidth), convertHeight(newHeight));
-        });
+        this.commands.fillRect(color, this.getMinX(x, width), this.getMinY(y, height), width, height);
         this.update();
     }
 
     public void fillRect(Translation2d translation1, Translation2d translation2, Color color) {
-        Translation2d newTranslation1 = new Translation2d(convertUnits(translation1.getX()), convertUnits(translation1.getY()));
-        Translation2d newTranslation2 = new Translation2d(convertUnits(translation2.getX()), convertUnits(translation2.getY()));
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.fillRect(convertX(newTranslation1.getX(), this.dimension), convertY(newTranslation1.getY(), this.dimension),
-                    convertWidth(newTranslation2.getX() - newTranslation1.getX()), convertHeight(newTranslation2.getY() - newTranslation1.getY()));
-        });
+        this.commands.fillRect(color,
+                Math.min(translation1.getX(), translation2.getX()), Math.min(translation1.getY(), translation2.getY()),
+                Math.abs(translation2.getX() - translation1.getX()), Math.abs(translation2.getY() - translation1.getY()));
         this.update();
     }
 
     public void drawLine(Translation2d translation1, Translation2d translation2, double width, Color color) {
-        width /= Math.sqrt(2);
-        double max = translation1.getDistance(translation2) - width;
-        for (double i = 0; i <= max; i += convertPixelsToUnits(1)) {
-            this.fillPoint(translation1.getX() + ((translation2.getX() - translation1.getX()) * (i / max)),
-                    translation1.getY() + ((translation2.getY() - translation1.getY()) * (i / max)),
-                    width / 2,
-                    color);
-        }
-        this.update();
+        this.drawLine(translation1.getX(), translation1.getY(), translation2.getX(), translation2.getY(), width, color);
     }
 
     public void drawLine(double x1, double y1, double x2, double y2, double width, Color color) {
-        this.drawLine(new Translation2d(x1, y1), new Translation2d(x2, y2), width, color);
+        // As thick as the line of round points it used to be drawn with
+        Stroke stroke = this.getStroke((float) (width / Math.sqrt(2)));
+
+        this.commands.drawThickLine(color, stroke, x1, y1, x2, y2);
+        this.update();
+    }
+
+    private Stroke getStroke(float width) {
+        return this.strokes.computeIfAbsent(width, w -> new BasicStroke(w, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
     }
 
     public void drawThinLine(Translation2d translation1, Translation2d translation2, Color color) {
-        Translation2d newTranslation1 = new Translation2d(convertUnits(translation1.getX()), convertUnits(translation1.getY()));
-        Translation2d newTranslation2 = new Translation2d(convertUnits(translation2.getX()), convertUnits(translation2.getY()));
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.drawLine(convertX(newTranslation1.getX(), dimension), convertY(newTranslation1.getY(), dimension),
-                    convertX(newTranslation2.getX(), dimension), convertY(newTranslation2.getY(), dimension));
-        });
-        this.update();
+        this.drawThinLine(translation1.getX(), translation1.getY(), translation2.getX(), translation2.getY(), color);
     }
 
     public void drawThinLine(double x1, double y1, double x2, double y2, Color color) {
-        this.drawThinLine(new Translation2d(x1, y1), new Translation2d(x2, y2), color);
+        this.commands.drawLine(color, x1, y1, x2, y2);
+        this.update();
     }
 
     public void drawPoint(double x, double y, double radius, Color color) {
-        double X = convertUnits(x);
-        double Y = convertUnits(y);
-        double diameter = convertUnits(radius) * 2;
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.drawRoundRect(convertXWithSize(X, convertWidth(diameter), this.dimension),
-                    convertYWithSize(Y, convertHeight(diameter), this.dimension),
-                    (int) diameter,
-                    (int) diameter,
-                    (int) diameter,
-                    (int) diameter);
-        });
+        double diameter = radius * 2;
+
+        this.commands.drawEllipse(color, this.getMinX(x, diameter), this.getMinY(y, diameter), diameter, diameter);
         this.update();
     }
 
     public void fillPoint(double x, double y, double radius, Color color) {
-        double X = convertUnits(x);
-        double Y = convertUnits(y);
-        double diameter = convertUnits(radius) * 2;
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.fillRoundRect(convertXWithSize(X, convertWidth(diameter), this.dimension),
-                    convertYWithSize(Y, convertHeight(diameter), this.dimension),
-                    (int) (diameter),
-                    (int) (diameter),
-                    (int) (diameter),
-                    (int) (diameter));
-        });
+        double diameter = radius * 2;
+
+        this.commands.fillEllipse(color, this.getMinX(x, diameter), this.getMinY(y, diameter), diameter, diameter);
         this.update();
     }
 
     public void write(double x, double y, String text, double size, Color color) {
-        double X = convertUnits(x);
-        double Y = convertUnits(y);
-        double newSize = convertUnits(size);
-
-        this.panel.graphics.add(g -> {
-            g.setColor(color);
-            g.setFont(new Font("ariel", Font.PLAIN, (int) newSize));
-            g.drawString(text, convertX(X, this.dimension), convertY(Y, this.dimension));
-        });
+        Font font = this.fonts.computeIfAbsent((int) convertUnits(size), newSize -> new Font("ariel", Font.PLAIN, newSize));
+
+        this.commands.drawString(color, font, text, x, y);
         this.update();
     }
 
@@ -278,10 +469,18 @@ public abstract class Frame extends JFrame implements FieldType, DrawType {
     }
 
     public void drawImage(Image image, int x, int y, int width, int height) {
-        ImageIcon imageIcon = new ImageIcon("beziercurve/Field.png");
+        this.commands.drawImage(image, x, y, width, height);
+    }
 
-        this.panel.graphics.add(g ->
-                g.drawImage(image, x, y, width, height, (img, infoflags, x1, y1, w, h) -> true));
+    /**
+     * Draws a tiled image over a rectangle of the field, only the tiles of it the window shows.
+     *
+     * @param image The image
+     * @param bounds The rectangle of the field the image covers, in field units
+     */
+    public void drawImage(TiledImage image, Rectangle2D bounds) {
+        image.draw(this.commands, this.transform.createTransformedShape(bounds).getBounds2D(), this.dimension);
+        this.update();
     }
 
     protected Translation2d getMouseTranslation(MouseEvent e) {
@@ -347,6 +546,72 @@ public abstract class Frame extends JFrame implements FieldType, DrawType {
         }
     }
 
+    /**
+     * Passes the input of the canvas of the active rendering on to the frame, with the mouse where it would be
+     * on the frame.
+     */
+    private class CanvasHandler extends MouseAdapter implements KeyListener {
+        private final Canvas canvas;
+
+        private CanvasHandler(Canvas canvas) {
+            this.canvas = canvas;
+        }
+
+        private MouseEvent convert(MouseEvent e) {
+            return SwingUtilities.convertMouseEvent(this.canvas, e, Frame.this);
+        }
+
+        @Override
+        public void mousePressed(MouseEvent e) {
+            Frame.this.mousePressed(this.convert(e));
+        }
+
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            Frame.this.mouseReleased(this.convert(e));
+        }
+
+        @Override
+        public void mouseEntered(MouseEvent e) {
+            Frame.this.mouseEntered(this.convert(e));
+        }
+
+        @Override
+        public void mouseExited(MouseEvent e) {
+            Frame.this.mouseExited(this.convert(e));
+        }
+
+        @Override
+        public void mouseDragged(MouseEvent e) {
+            Frame.this.mouseDragged(this.convert(e));
+        }
+
+        @Override
+        public void mouseMoved(MouseEvent e) {
+            Frame.this.mouseMoved(this.convert(e));
+        }
+
+        @Override
+        public void mouseWheelMoved(MouseWheelEvent e) {
+            Frame.this.mouseWheelMoved((MouseWheelEvent) this.convert(e));
+        }
+
+        @Override
+        public void keyTyped(KeyEvent e) {
+            Frame.this.keyTyped(e);
+        }
+
+        @Override
+        public void keyPressed(KeyEvent e) {
+            Frame.this.keyPressed(e);
+        }
+
+        @Override
+        public void keyReleased(KeyEvent e) {
+            Frame.this.keyReleased(e);
+        }
+    }
+
     private class KeyHandler implements KeyListener {
         @Override
         public void keyTyped(KeyEvent e) {
@@ -364,18 +629,50 @@ public abstract class Frame extends JFrame implements FieldType, DrawType {
         }
     }
 
+    private record Layer(Object inputs, BufferedImage image) {}
+
+    /**
+     * Paints the last complete frame. The commands are triple buffered: the frame being recorded belongs to the
+     * drawing thread, the frame being painted belongs to the EDT, and the last complete frame is in between,
+     * so both threads only swap their own buffer with it and never wait for each other.
+     */
     private static class Panel extends JPanel {
-        private final List<Consumer<Graphics>> graphics;
+        private final AtomicReference<Buffer> ready = new AtomicReference<>(new Buffer());
+        private Buffer back = new Buffer();
+        private Buffer front = new Buffer();
+
+        /**
+         * Makes the recorded frame the next one to paint, and starts recording the next frame.
+         */
+        private void present() {
+            this.back.isComplete = true;
+            // Either the painted frame the EDT gave back, or a complete frame it never got to paint
+            this.back = this.ready.getAndSet(this.back);
+            this.back.commands.clear();
+        }
 
-        public Panel() {
-            this.graphics = new ArrayList<>();
+        /**
+         * Takes the last complete frame if it wasn't taken yet. Only one thread may paint the frames.
+         *
+         * @return The frame to paint
+         */
+        private DrawCommands takeFrame() {
+            if (this.ready.get().isComplete) {
+                this.front = this.ready.getAndSet(this.front);
+                this.front.isComplete = false;
+            }
+            return this.front.commands;
         }
 
         @Override
         protected void paintComponent(Graphics g) {
-            try {
-                this.graphics.forEach(c -> c.accept(g));
-            } catch (ConcurrentModificationException ignored) {}
+            this.takeFrame().replay(g);
         }
     }
+
+    private static class Buffer {
+        private final DrawCommands commands = new DrawCommands();
+        // Whether the frame is complete and wasn't painted yet
+        private boolean isComplete = false;
+    }
 }
@@ -0,0 +1,164 @@
+package pathfollower.gui;
+
+import pathfollower.math.geometry.Dimension2d;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A big image kept ready to draw at any zoom, like the image of the field. The image is loaded once, converted
+ * to the format of the screen, and scaled down by half again and again into mip levels, each split into tiles.
+ * Drawing picks the smallest level that still has a pixel for every pixel of the screen and only draws the tiles
+ * the window shows, so zooming doesn't scale the whole image every frame.
+ */
+public class TiledImage {
+    private static final int TILE_SIZE = 256;
+
+    private static final Map<String, TiledImage> IMAGES = new HashMap<>();
+
+    private final int width;
+    private final int height;
+    // The tiles of every level by their row and their column, level 0 is the full image
+    private final BufferedImage[][][] levels;
+
+    private TiledImage(BufferedImage image) {
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+
+        int levelCount = 1;
+        while (Math.max(this.width, this.height) >> (levelCount - 1) > TILE_SIZE) {
+            levelCount++;
+        }
+        this.levels = new BufferedImage[levelCount][][];
+
+        BufferedImage level = copy(image, this.width, this.height, image.getTransparency());
+        for (int i = 0; i < levelCount; i++) {
+            if (i > 0)
+                level = copy(level, Math.max(1, level.getWidth() / 2), Math.max(1, level.getHeight() / 2), image.getTransparency());
+            this.levels[i] = split(level, image.getTransparency());
+        }
+    }
+
+    /**
+     * Returns the image in a file, loaded only the first time it is asked for.
+     *
+     * @param path The path of the image file
+     * @return The image
+     */
+    public static synchronized TiledImage load(String path) {
+        TiledImage image = IMAGES.get(path);
+        if (image == null) {
+            try {
+                BufferedImage file = ImageIO.read(new File(path));
+                if (file == null)
+                    throw new IllegalArgumentException("The file " + path + " isn't an image!");
+                image = new TiledImage(file);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            IMAGES.put(path, image);
+        }
+        return image;
+    }
+
+    /**
+     * Records the tiles of the image that are inside the window.
+     *
+     * @param commands The commands to record the tiles into
+     * @param bounds Where the whole image is drawn in pixels
+     * @param window The width and the height of the window in pixels
+     */
+    void draw(DrawCommands commands, Rectangle2D bounds, Dimension2d window) {
+        double scale = Math.min(bounds.getWidth() / this.width, bounds.getHeight() / this.height);
+        int level = 0;
+        while (level < this.levels.length - 1 && scale <= 0.5) {
+            scale *= 2;
+            level++;
+        }
+
+        BufferedImage[][] tiles = this.levels[level];
+        BufferedImage last = tiles[tiles.length - 1][tiles[0].length - 1];
+        // The pixels of the screen in one pixel of the level
+        double scaleX = bounds.getWidth() / (((tiles[0].length - 1) * TILE_SIZE) + last.getWidth());
+        double scaleY = bounds.getHeight() / (((tiles.length - 1) * TILE_SIZE) + last.getHeight());
+        double tileWidth = TILE_SIZE * scaleX;
+        double tileHeight = TILE_SIZE * scaleY;
+        int firstRow = Math.max(0, (int) Math.floor(-bounds.getY() / tileHeight));
+        int lastRow = Math.min(tiles.length - 1, (int) Math.floor((window.getY() - bounds.getY()) / tileHeight));
+        int firstColumn = Math.max(0, (int) Math.floor(-bounds.getX() / tileWidth));
+        int lastColumn = Math.min(tiles[0].length - 1, (int) Math.floor((window.getX() - bounds.getX()) / tileWidth));
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                BufferedImage tile = tiles[row][column];
+                // Both edges of every tile are rounded the same way, so the tiles meet without gaps
+                int x1 = (int) Math.round(bounds.getX() + (column * tileWidth));
+                int y1 = (int) Math.round(bounds.getY() + (row * tileHeight));
+                int x2 = (int) Math.round(bounds.getX() + (column * tileWidth) + (tile.getWidth() * scaleX));
+                int y2 = (int) Math.round(bounds.getY() + (row * tileHeight) + (tile.getHeight() * scaleY));
+                if (x2 > x1 && y2 > y1)
+                    commands.drawImage(tile, x1, y1, x2 - x1, y2 - y1);
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLevelCount() {
+        return this.levels.length;
+    }
+
+    private static BufferedImage[][] split(BufferedImage image, int transparency) {
+        int rows = (image.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        int columns = (image.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+        BufferedImage[][] tiles = new BufferedImage[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int x = column * TILE_SIZE;
+                int y = row * TILE_SIZE;
+                tiles[row][column] = copy(image.getSubimage(x, y, Math.min(TILE_SIZE, image.getWidth() - x),
+                        Math.min(TILE_SIZE, image.getHeight() - y)), -1, -1, transparency);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Copies an image into a new image in the format of the screen, scaled smoothly to the given size.
+     *
+     * @param width The width of the copy, negative for the width of the image
+     * @param height The height of the copy, negative for the height of the image
+     */
+    private static BufferedImage copy(BufferedImage image, int width, int height, int transparency) {
+        width = width < 0 ? image.getWidth() : width;
+        height = height < 0 ? image.getHeight() : height;
+
+        BufferedImage copy;
+        if (GraphicsEnvironment.isHeadless()) {
+            copy = new BufferedImage(width, height, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+        } else {
+            copy = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                    .createCompatibleImage(width, height, transparency);
+        }
+
+        Graphics2D graphics = copy.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return copy;
+    }
+}
@@ -17,4 +17,9 @@ public interface DrawCentered extends DrawType {
     default int convertHeight(double height) {
         return (int) -height;
     }
+
+    @Override
+    default double getAlignment() {
+        return 0.5;
+    }
 }
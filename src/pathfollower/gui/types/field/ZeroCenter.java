@@ -2,6 +2,8 @@ package pathfollower.gui.types.field;
 
 import pathfollower.math.geometry.Dimension2d;
 
+import java.awt.geom.AffineTransform;
+
 public interface ZeroCenter extends ZeroLeftBottom {
     @Override
     default int convertX(double x, Dimension2d dimension) {
@@ -13,6 +15,13 @@ public interface ZeroCenter extends ZeroLeftBottom {
         return ZeroLeftBottom.super.convertY(y + (dimension.getY() / 2d), dimension);
     }
 
+    @Override
+    default AffineTransform getFieldTransform(Dimension2d dimension) {
+        AffineTransform transform = ZeroLeftBottom.super.getFieldTransform(dimension);
+        transform.translate(dimension.getX() / 2d, dimension.getY() / 2d);
+        return transform;
+    }
+
     @Override
     default double convertPixelsToX(double pixels, Dimension2d dimension) {
         return ZeroLeftBottom.super.convertPixelsToX(pixels - (dimension.getX() / 2d), dimension);
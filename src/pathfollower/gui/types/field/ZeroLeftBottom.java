@@ -3,12 +3,19 @@ package pathfollower.gui.types.field;
 import pathfollower.gui.FieldType;
 import pathfollower.math.geometry.Dimension2d;
 
+import java.awt.geom.AffineTransform;
+
 public interface ZeroLeftBottom extends FieldType {
     @Override
     default int convertY(double y, Dimension2d dimension) {
         return (int) (dimension.getY() - y);
     }
 
+    @Override
+    default AffineTransform getFieldTransform(Dimension2d dimension) {
+        return new AffineTransform(1, 0, 0, -1, 0, dimension.getY());
+    }
+
     @Override
     default double convertPixelsToX(double pixels, Dimension2d dimension) {
         return FieldType.super.convertPixelsToX(pixels, dimension);
@@ -0,0 +1,164 @@
+package pathfollower.path;
+
+/**
+ * Samples of a path indexed by their distance along it. The arc length is integrated once when the table is
+ * built so finding a point by distance is a binary search, and finding the closest sample to the robot only
+ * has to look through the samples after the last one it found.
+ */
+public class ArcLengthTable {
+    private final double[] ts;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] distances;
+
+    public ArcLengthTable(Path path) {
+        this(path, path.getDifferentBetweenTs());
+    }
+
+    public ArcLengthTable(Path path, double differentBetweenTs) {
+        int size = (int) Math.ceil(1 / differentBetweenTs) + 1;
+
+        this.ts = new double[size];
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.distances = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            double t = Math.min(1, i * differentBetweenTs);
+            this.ts[i] = t;
+            this.xs[i] = path.getX(t);
+            this.ys[i] = path.getY(t);
+            if (i > 0)
+                this.distances[i] = this.distances[i - 1] + Math.hypot(this.xs[i] - this.xs[i - 1], this.ys[i] - this.ys[i - 1]);
+        }
+    }
+
+    /**
+     * Finds the index of the last sample that isn't farther along the path than the given distance.
+     *
+     * @param distance The distance along the path
+     * @return The index of the sample, between 0 and size() - 1
+     */
+    public int getIndex(double distance) {
+        if (distance <= 0)
+            return 0;
+        if (distance >= this.getLength())
+            return this.size() - 1;
+
+        int low = 0;
+        int high = this.size() - 1;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (this.distances[middle] <= distance)
+                low = middle;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    public double getX(double distance) {
+        return this.interpolate(this.xs, distance);
+    }
+
+    public double getY(double distance) {
+        return this.interpolate(this.ys, distance);
+    }
+
+    public double getT(double distance) {
+        return this.interpolate(this.ts, distance);
+    }
+
+    private double interpolate(double[] values, double distance) {
+        int index = this.getIndex(distance);
+        if (index >= this.size() - 1)
+            return values[this.size() - 1];
+
+        double length = this.distances[index + 1] - this.distances[index];
+        if (length <= 0)
+            return values[index];
+        double ratio = Math.max(0, Math.min(1, (distance - this.distances[index]) / length));
+        return values[index] + ((values[index + 1] - values[index]) * ratio);
+    }
+
+    /**
+     * Finds the sample closest to a point between two samples.
+     *
+     * @param x The x of the point
+     * @param y The y of the point
+     * @param from The index of the first sample to search
+     * @param to The index of the last sample to search
+     * @return The index of the closest sample
+     */
+    public int getClosestIndex(double x, double y, int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(this.size() - 1, to);
+
+        int closest = from;
+        double minDistance = Double.MAX_VALUE;
+        for (int i = from; i <= to; i++) {
+            double dx = this.xs[i] - x;
+            double dy = this.ys[i] - y;
+            double distance = (dx * dx) + (dy * dy);
+            if (distance < minDistance) {
+                minDistance = distance;
+                closest = i;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Projects a point onto the path next to the given sample.
+     *
+     * @param x The x of the point
+     * @param y The y of the point
+     * @param index The index of the closest sample to the point
+     * @return The distance along the path of the projection of the point
+     */
+    public double project(double x, double y, int index) {
+        double distance = this.distances[index];
+        if (index < this.size() - 1) {
+            double projected = this.projectOnSegment(x, y, index);
+            if (projected > 0)
+                return distance + projected;
+        }
+        if (index > 0)
+            return this.distances[index - 1] + this.projectOnSegment(x, y, index - 1);
+        return distance;
+    }
+
+    private double projectOnSegment(double x, double y, int index) {
+        double segmentX = this.xs[index + 1] - this.xs[index];
+        double segmentY = this.ys[index + 1] - this.ys[index];
+        double length = Math.hypot(segmentX, segmentY);
+        if (length <= 0)
+            return 0;
+        double projected = (((x - this.xs[index]) * segmentX) + ((y - this.ys[index]) * segmentY)) / length;
+        return Math.max(0, Math.min(length, projected));
+    }
+
+    public double getSampleT(int index) {
+        return this.ts[index];
+    }
+
+    public double getSampleX(int index) {
+        return this.xs[index];
+    }
+
+    public double getSampleY(int index) {
+        return this.ys[index];
+    }
+
+    public double getSampleDistance(int index) {
+        return this.distances[index];
+    }
+
+    public double getLength() {
+        return this.distances[this.size() - 1];
+    }
+
+    public int size() {
+        return this.ts.length;
+    }
+}
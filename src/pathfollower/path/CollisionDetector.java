@@ -0,0 +1,255 @@
+package pathfollower.path;
+
+import java.util.Arrays;
+
+/**
+ * Finds the robots whose square bumpers touch, or will touch within a time horizon if they keep their
+ * velocities. Every update the robots are put in a spatial hash grid with cells big enough that a robot can
+ * only reach the robots in the cells around its own, so only those pairs get the exact separating axis test
+ * instead of every pair of robots.
+ */
+public class CollisionDetector {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final double halfWidth;
+    private final double horizon;
+
+    // The grid is an open addressing table from a cell to the first robot in it, and every robot points to
+    // the next robot in its cell, so filling it every update doesn't allocate
+    private long[] cells = new long[0];
+    private int[] heads = new int[0];
+    private int[] next = new int[0];
+    private int[] cellXs = new int[0];
+    private int[] cellYs = new int[0];
+    private double cellSize;
+
+    private int contactCount = 0;
+    private int[] contactAs = new int[16];
+    private int[] contactBs = new int[16];
+    private double[] timesToCollision = new double[16];
+    private double[] depths = new double[16];
+
+    /**
+     * Constructs a collision detector.
+     *
+     * @param width The width of the robot with its bumpers in meters
+     * @param horizon How far ahead to look for collisions in seconds, zero to only find touching robots
+     */
+    public CollisionDetector(double width, double horizon) {
+        if (width <= 0)
+            throw new IllegalArgumentException("Robot width must be a non-zero positive number!");
+        if (horizon < 0)
+            throw new IllegalArgumentException("Collision horizon must be a positive number!");
+        this.halfWidth = width / 2;
+        this.horizon = horizon;
+    }
+
+    /**
+     * Finds the contacts between the given robots.
+     *
+     * @param robots The robots
+     */
+    public void update(Robot[] robots) {
+        this.contactCount = 0;
+        int size = robots.length;
+        if (size < 2)
+            return;
+
+        // Two robots can only touch if their centers are closer than the diagonal of the bumper,
+        // plus the distance both of them drive in the horizon
+        double maxSpeed = 0;
+        for (Robot robot : robots) {
+            maxSpeed = Math.max(maxSpeed, robot.getSpeed());
+        }
+        this.cellSize = (2 * Math.sqrt(2) * this.halfWidth) + (2 * maxSpeed * this.horizon);
+
+        this.fill(robots);
+
+        for (int i = 0; i < size; i++) {
+            int cellX = this.cellXs[i];
+            int cellY = this.cellYs[i];
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int j = this.heads[this.find(cellX + dx, cellY + dy)]; j >= 0; j = this.next[j]) {
+                        // Every pair is tested once, from the robot with the lower index
+                        if (j > i)
+                            this.test(robots, i, j);
+                    }
+                }
+            }
+        }
+    }
+
+    private void fill(Robot[] robots) {
+        int size = robots.length;
+        if (this.next.length < size) {
+            this.next = new int[size];
+            this.cellXs = new int[size];
+            this.cellYs = new int[size];
+            // Keeps the table at most half full so probing stays short
+            int capacity = Integer.highestOneBit(size * 4 - 1);
+            this.cells = new long[capacity];
+            this.heads = new int[capacity];
+        }
+        Arrays.fill(this.cells, EMPTY);
+        Arrays.fill(this.heads, -1);
+
+        for (int i = 0; i < size; i++) {
+            int cellX = (int) Math.floor(robots[i].getX() / this.cellSize);
+            int cellY = (int) Math.floor(robots[i].getY() / this.cellSize);
+            this.cellXs[i] = cellX;
+            this.cellYs[i] = cellY;
+
+            int slot = this.find(cellX, cellY);
+            this.cells[slot] = key(cellX, cellY);
+            this.next[i] = this.heads[slot];
+            this.heads[slot] = i;
+        }
+    }
+
+    /**
+     * Finds the slot of a cell in the table, which is an empty slot if the cell has no robots.
+     */
+    private int find(int cellX, int cellY) {
+        long key = key(cellX, cellY);
+        int mask = this.cells.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (this.cells[slot] != EMPTY && this.cells[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Tests two robots with the separating axis theorem, moving the second robot with the velocity relative to
+     * the first one. The robots don't rotate during the horizon, so the time is exact for the translation.
+     */
+    private void test(Robot[] robots, int a, int b) {
+        Robot robotA = robots[a];
+        Robot robotB = robots[b];
+
+        double centerX = robotB.getX() - robotA.getX();
+        double centerY = robotB.getY() - robotA.getY();
+        double velocityX = robotB.getVelocityX() - robotA.getVelocityX();
+        double velocityY = robotB.getVelocityY() - robotA.getVelocityY();
+
+        double headingA = Math.toRadians(robotA.getHeadingDegrees());
+        double headingB = Math.toRadians(robotB.getHeadingDegrees());
+        double cosA = Math.cos(headingA);
+        double sinA = Math.sin(headingA);
+        double cosB = Math.cos(headingB);
+        double sinB = Math.sin(headingB);
+
+        double enter = 0;
+        double exit = Double.POSITIVE_INFINITY;
+        double depth = Double.POSITIVE_INFINITY;
+        // The axes of a square are its two edge normals
+        for (int axis = 0; axis < 4; axis++) {
+            double axisX;
+            double axisY;
+            switch (axis) {
+                case 0 -> { axisX = cosA; axisY = sinA; }
+                case 1 -> { axisX = -sinA; axisY = cosA; }
+                case 2 -> { axisX = cosB; axisY = sinB; }
+                default -> { axisX = -sinB; axisY = cosB; }
+            }
+
+            double radiusA = this.halfWidth * (Math.abs((cosA * axisX) + (sinA * axisY)) + Math.abs((cosA * axisY) - (sinA * axisX)));
+            double radiusB = this.halfWidth * (Math.abs((cosB * axisX) + (sinB * axisY)) + Math.abs((cosB * axisY) - (sinB * axisX)));
+            double radius = radiusA + radiusB;
+
+            // The robots overlap on this axis while the distance between their centers is less than the radius
+            double distance = (centerX * axisX) + (centerY * axisY);
+            double speed = (velocityX * axisX) + (velocityY * axisY);
+
+            if (Math.abs(distance) < radius) {
+                depth = Math.min(depth, radius - Math.abs(distance));
+                if (speed > 0)
+                    exit = Math.min(exit, (radius - distance) / speed);
+                else if (speed < 0)
+                    exit = Math.min(exit, (-radius - distance) / speed);
+            } else {
+                depth = 0;
+                // Separated on this axis and not getting closer, so they never touch
+                if (distance * speed >= 0)
+                    return;
+                enter = Math.max(enter, (Math.abs(distance) - radius) / Math.abs(speed));
+                exit = Math.min(exit, (Math.abs(distance) + radius) / Math.abs(speed));
+            }
+
+            if (enter > exit || enter > this.horizon)
+                return;
+        }
+
+        this.addContact(a, b, enter, depth);
+    }
+
+    private void addContact(int a, int b, double timeToCollision, double depth) {
+        if (this.contactCount == this.contactAs.length) {
+            int capacity = this.contactCount * 2;
+            this.contactAs = Arrays.copyOf(this.contactAs, capacity);
+            this.contactBs = Arrays.copyOf(this.contactBs, capacity);
+            this.timesToCollision = Arrays.copyOf(this.timesToCollision, capacity);
+            this.depths = Arrays.copyOf(this.depths, capacity);
+        }
+        this.contactAs[this.contactCount] = a;
+        this.contactBs[this.contactCount] = b;
+        this.timesToCollision[this.contactCount] = timeToCollision;
+        this.depths[this.contactCount] = depth;
+        this.contactCount++;
+    }
+
+    /**
+     * Returns the amount of contacts found by the last update, both touching robots and robots that will
+     * touch within the horizon.
+     *
+     * @return The amount of contacts
+     */
+    public int getContactCount() {
+        return contactCount;
+    }
+
+    /**
+     * @param contact The index of the contact
+     * @return The index of the first robot of the contact, which is lower than the second one
+     */
+    public int getContactA(int contact) {
+        return this.contactAs[contact];
+    }
+
+    /**
+     * @param contact The index of the contact
+     * @return The index of the second robot of the contact
+     */
+    public int getContactB(int contact) {
+        return this.contactBs[contact];
+    }
+
+    /**
+     * @param contact The index of the contact
+     * @return The time until the robots touch in seconds, zero if they already touch
+     */
+    public double getTimeToCollision(int contact) {
+        return this.timesToCollision[contact];
+    }
+
+    /**
+     * @param contact The index of the contact
+     * @return How deep the bumpers overlap in meters, zero if they don't touch yet
+     */
+    public double getDepth(int contact) {
+        return this.depths[contact];
+    }
+
+    public boolean isTouching(int contact) {
+        return this.timesToCollision[contact] == 0;
+    }
+
+    public double getHorizon() {
+        return horizon;
+    }
+}
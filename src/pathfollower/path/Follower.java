@@ -1,19 +1,29 @@
 package pathfollower.path;
 
+import pathfollower.math.MathUtil;
 import pathfollower.path.path.BezierCurve;
+import pathfollower.path.pid.PIDController;
 import pathfollower.path.pid.PIDPreset;
 import pathfollower.path.pid.ProfiledPIDController;
 import pathfollower.path.pid.TrapezoidProfile;
 import pathfollower.math.geometry.Pose2d;
 import pathfollower.math.geometry.Rotation2d;
 import pathfollower.math.geometry.Translation2d;
+import pathfollower.path.telemetry.LatencyHistogram;
+import pathfollower.path.telemetry.TelemetryBuffer;
+import pathfollower.path.telemetry.TelemetryRecord;
+import pathfollower.util.Clock;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 
-public class Follower {
-    private final Path path;
+public class Follower implements PathTracker {
+    private static final double DEFAULT_REPLAN_BUDGET = 0.2;
+
+    private Path path;
     private final Robot robot;
 
     private final Constants constants;
@@ -21,11 +31,42 @@ public class Follower {
     private final ProfiledPIDController pidController;
     private final ProfiledPIDController omegaController;
 
-    private Path.State state = new Path.State(new Pose2d(), -1);
+    private final PIDController xController;
+    private final PIDController yController;
+
+    private PosePredictor predictor;
+
+    private Mode mode = Mode.CLOSEST_POINT;
+    private Trajectory trajectory;
+    private final Trajectory.Sample sample = new Trajectory.Sample();
+    private double trajectoryTime = 0;
+    // The clock time of the last update of the trajectory, NaN until the trajectory is updated the first time
+    private double lastTrajectoryUpdate = Double.NaN;
+
+    // The closest point is kept in primitives so update() doesn't allocate a State every loop
+    private double t = -1;
+    private double closestX = 0;
+    private double closestY = 0;
 
     private boolean isRunning = true;
 
-    private long lastUpdate = 0;
+    private Clock clock = Clock.SYSTEM;
+    private double lastUpdate = 0;
+
+    // A replan is built on its own thread and handed to the loop through the reference, so the loop only
+    // ever swaps to a finished path and never waits for one
+    private ExecutorService replanner;
+    private final AtomicBoolean isReplanning = new AtomicBoolean(false);
+    private final AtomicReference<Replan> replan = new AtomicReference<>();
+    private double replanBudget = DEFAULT_REPLAN_BUDGET;
+    private int run = 0;
+
+    private TelemetryBuffer telemetry;
+    private final TelemetryRecord record = new TelemetryRecord();
+
+    // Indexed by the ordinal of the stage, the histograms are only written by update()
+    private final LatencyHistogram[] latencies = new LatencyHistogram[Stage.values().length];
+    private long overruns = 0;
 
     public Follower(Path path, Robot robot, Constants constants) {
         this.path = path;
@@ -38,62 +79,393 @@ public class Follower {
         this.omegaController = new ProfiledPIDController(constants.omegaPreset.getkP(), constants.omegaPreset.getkI(), constants.omegaPreset.getkD(),
                 new TrapezoidProfile.Constraints(constants.omegaPreset.getMaxVel(), constants.omegaPreset.getMaxAccel()));
         this.omegaController.enableContinuousInput(0, 360);
+
+        this.xController = new PIDController(constants.drivePreset.getkP(), constants.drivePreset.getkI(), constants.drivePreset.getkD(),
+                robot.getConstants().period());
+        this.yController = new PIDController(constants.drivePreset.getkP(), constants.drivePreset.getkI(), constants.drivePreset.getkD(),
+                robot.getConstants().period());
+
+        for (int i = 0; i < this.latencies.length; i++) {
+            this.latencies[i] = new LatencyHistogram();
+        }
     }
 
+    @Override
     public void start() {
         this.pidController.reset(
                 this.path.getDistance(0, this.path.getClosestPoint(this.robot.getPosition()).t()),
                 0);
-        this.omegaController.reset(this.robot.getPosition().getRotation().getDegrees(), 0);
+        this.omegaController.reset(this.robot.getHeadingDegrees(), 0);
+
+        this.trajectory = this.mode == Mode.TRAJECTORY ? new Trajectory(this.path) : null;
+        this.trajectoryTime = 0;
+        this.lastTrajectoryUpdate = Double.NaN;
+        this.xController.reset();
+        this.yController.reset();
+        // A replan of the last run that is still being built is dropped when it finishes
+        this.run++;
+        this.replan.set(null);
     }
 
+    @Override
     public void update() {
-        this.state = this.getClosestState();
+        long start = System.nanoTime();
+        if (this.predictor != null)
+            this.predictor.predict(this.robot);
+
+        Replan replan = this.replan.getAndSet(null);
+        if (replan != null)
+            this.swap(replan);
 
+        // The stages are timed from here, the prediction and the swap are only part of the whole update
+        if (this.trajectory != null)
+            this.updateTrajectory(System.nanoTime());
+        else
+            this.updateClosestPoint(System.nanoTime());
+
+        // The whole update has to fit in one period of the loop
+        long latency = System.nanoTime() - start;
+        this.latencies[Stage.UPDATE.ordinal()].record(latency);
+        if (latency > this.robot.getConstants().period() * 1e9)
+            this.overruns++;
+    }
+
+    private void updateClosestPoint(long time) {
+        this.updateClosestState();
+        time = this.recordLatency(Stage.CLOSEST_POINT, time);
+
+        double setpointVelocity = 0;
         if (this.isRunning) {
-            Pose2d velocity = this.path.getVelocity(state, this.robot.getPosition(), this.calculateVelocity(), this.calculateOmega());
+            double distance = this.path.getDistance(this.t);
+            double length = this.path.getPathLength();
+            time = this.recordLatency(Stage.DISTANCE, time);
+
+            double velocity = this.pidController.calculate(distance, length);
+            double omega = this.calculateOmega();
+            time = this.recordLatency(Stage.PID, time);
+
+            double angle = this.path.getVelocityAngle(this.t, this.closestX, this.closestY, this.getRobotX(), this.getRobotY());
+            velocity = this.path.limitVelocity(this.t, velocity);
+            time = this.recordLatency(Stage.CURVATURE, time);
 
-            double lastUpdate = (System.currentTimeMillis() - this.lastUpdate) / 1000d;
-            double velocityDiff = velocity.getTranslation().getNorm() - this.robot.getVelocity().getTranslation().getNorm();
+            setpointVelocity = velocity;
+            double velocityX = velocity * Math.cos(angle);
+            double velocityY = velocity * Math.sin(angle);
+
+            double lastUpdate = this.clock.getTime() - this.lastUpdate;
+            double velocityDiff = Math.abs(velocity) - this.robot.getSpeed();
             if (Math.abs(velocityDiff) / lastUpdate >= this.path.getConstants().maxAccel()) {
-                velocity = new Pose2d(
-                        new Translation2d(
-                            this.robot.getVelocity().getTranslation().getNorm() +
-                                    Math.copySign(this.path.getConstants().maxAccel() * lastUpdate, velocityDiff),
-                            velocity.getTranslation().getAngle()),
-                        velocity.getRotation());
+                double limitedVelocity = this.robot.getSpeed() +
+                        Math.copySign(this.path.getConstants().maxAccel() * lastUpdate, velocityDiff);
+                // Without a velocity to limit the robot keeps driving along the path
+                double directionX = Math.cos(angle);
+                double directionY = Math.sin(angle);
+                if (Math.abs(velocity) > 1e-6) {
+                    directionX = velocityX / Math.abs(velocity);
+                    directionY = velocityY / Math.abs(velocity);
+                }
+                velocityX = limitedVelocity * directionX;
+                velocityY = limitedVelocity * directionY;
             }
 
-            this.robot.drive(velocity);
+            this.robot.drive(velocityX, velocityY, omega);
+            this.recordLatency(Stage.DRIVE, time);
         }
 
-        this.lastUpdate = System.currentTimeMillis();
+        this.lastUpdate = this.clock.getTime();
+        this.recordTelemetry(setpointVelocity);
+    }
+
+    private void updateTrajectory(long time) {
+        // The trajectory moves with the clock and not by the period of the robot, so the setpoint keeps up with
+        // the time when the loop runs at another rate or late, and stands still while the follower is stopped
+        double now = this.clock.getTime();
+        if (this.isRunning && !Double.isNaN(this.lastTrajectoryUpdate))
+            this.trajectoryTime += now - this.lastTrajectoryUpdate;
+        this.lastTrajectoryUpdate = now;
+
+        this.trajectory.sample(this.trajectoryTime, this.sample);
+        this.t = this.sample.t;
+        this.closestX = this.sample.x;
+        this.closestY = this.sample.y;
+        time = this.recordLatency(Stage.CLOSEST_POINT, time);
+
+        if (this.isRunning) {
+            // The trajectory already gives the velocity, the PID only corrects the error from it
+            double velocityX = this.sample.getVelocityX() + this.xController.calculate(this.getRobotX(), this.sample.x);
+            double velocityY = this.sample.getVelocityY() + this.yController.calculate(this.getRobotY(), this.sample.y);
+            double omega = this.calculateOmega();
+            time = this.recordLatency(Stage.PID, time);
+
+            this.robot.drive(velocityX, velocityY, omega);
+            this.recordLatency(Stage.DRIVE, time);
+        }
+
+        this.recordTelemetry(this.sample.velocity);
+    }
+
+    /**
+     * Records the time since the end of the last stage as the latency of a stage.
+     *
+     * @return The end of this stage in nanoseconds
+     */
+    private long recordLatency(Stage stage, long start) {
+        long end = System.nanoTime();
+        this.latencies[stage.ordinal()].record(end - start);
+        return end;
+    }
+
+    private void recordTelemetry(double setpointVelocity) {
+        if (this.telemetry == null)
+            return;
+
+        this.record.time = this.clock.getTime();
+        this.record.x = this.robot.getX();
+        this.record.y = this.robot.getY();
+        this.record.heading = this.robot.getHeadingDegrees();
+        this.record.velocityX = this.robot.getVelocityX();
+        this.record.velocityY = this.robot.getVelocityY();
+        this.record.omega = this.robot.getOmega();
+        this.record.t = this.t;
+        this.record.setpointX = this.closestX;
+        this.record.setpointY = this.closestY;
+        this.record.setpointVelocity = setpointVelocity;
+        this.record.positionError = Math.hypot(this.closestX - this.robot.getX(), this.closestY - this.robot.getY());
+        this.record.headingError = MathUtil.inputModulus(this.constants.endHeading - this.robot.getHeadingDegrees(), -180, 180);
+        this.telemetry.offer(this.record);
+    }
+
+    /**
+     * Builds a new path from where the robot is on a background thread, and switches to it at the start of the
+     * first update after it is built. The robot keeps following the current path until then, and keeps its
+     * heading and velocity through the switch. Only one replan runs at a time.
+     *
+     * <p>Must be called from the thread that updates the follower, since the pose, the velocity and the run the
+     * replan starts from are read from the state the loop writes. Only the planner runs on another thread.
+     *
+     * @param planner Builds the new path from the pose and the field relative velocity of the robot, the path
+     *                should start at the pose and leave it in the direction of the velocity
+     * @return Whether the replan started, false if another replan is still being built
+     */
+    public boolean replan(BiFunction<Pose2d, Translation2d, Path> planner) {
+        if (!this.isReplanning.compareAndSet(false, true))
+            return false;
+
+        Pose2d pose = new Pose2d(this.getRobotX(), this.getRobotY(), Rotation2d.fromDegrees(this.getRobotHeadingDegrees()));
+        Translation2d velocity = new Translation2d(this.robot.getVelocityX(), this.robot.getVelocityY());
+        boolean isTrajectory = this.trajectory != null;
+        double time = this.clock.getTime();
+        int run = this.run;
+
+        if (this.replanner == null) {
+            this.replanner = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Replanner");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.replanner.execute(() -> {
+            try {
+                Path path = planner.apply(pose, velocity);
+                if (path != null) {
+                    // The trajectory is the expensive part, so it is built here and not when swapping
+                    Trajectory trajectory = isTrajectory
+                            ? new Trajectory(path, path.getDifferentBetweenTs(), velocity.getNorm()) : null;
+                    this.replan.set(new Replan(path, trajectory, time, run));
+                }
+            } finally {
+                this.isReplanning.set(false);
+            }
+        });
+        return true;
+    }
+
+    private void swap(Replan replan) {
+        // The new path starts where the robot was when replanning started, a late path starts too far behind it
+        double latency = this.clock.getTime() - replan.time();
+        if (latency > this.replanBudget || replan.run() != this.run)
+            return;
+
+        // The controller turns the lead of the profile on the robot into its velocity, so the profile keeps
+        // the same lead on the new path
+        TrapezoidProfile.State setpoint = this.pidController.getSetpoint();
+        double lead = this.t >= 0 ? setpoint.position - this.path.getDistance(this.t) : 0;
+        double setpointVelocity = setpoint.velocity;
+
+        this.path = replan.path();
+        this.t = -1;
+        if (replan.trajectory() != null) {
+            // The robot is already the latency into the new trajectory
+            this.trajectory = replan.trajectory();
+            this.trajectoryTime = latency;
+            this.lastTrajectoryUpdate = Double.NaN;
+        } else {
+            this.trajectory = null;
+            this.updateClosestState();
+            this.pidController.reset(this.path.getDistance(this.t) + lead, setpointVelocity);
+        }
+    }
+
+    public boolean isReplanning() {
+        return this.isReplanning.get() || this.replan.get() != null;
+    }
+
+    /**
+     * Returns whether a replan is built and waits for the next update, which switches to it or drops it if it
+     * is later than the budget.
+     *
+     * @return Whether a built replan is waiting
+     */
+    public boolean hasReplan() {
+        return this.replan.get() != null;
+    }
+
+    public double getReplanBudget() {
+        return replanBudget;
+    }
+
+    /**
+     * Sets the longest time a replan can take. A path that is built later than that was planned from where the
+     * robot was too long ago, so it is dropped and the robot keeps following the current path.
+     *
+     * @param replanBudget The budget in seconds
+     */
+    public void setReplanBudget(double replanBudget) {
+        this.replanBudget = replanBudget;
+    }
+
+    /**
+     * Returns the path being followed, which a replan switches at the start of an update. It is written by the
+     * thread that updates the follower, so it is read from that thread too.
+     *
+     * @return The current path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    public TelemetryBuffer getTelemetry() {
+        return telemetry;
+    }
+
+    /**
+     * Sets the buffer every update writes its telemetry to, or null to not record telemetry. The follower is the
+     * only producer of the buffer, so it can't be shared with another follower.
+     *
+     * @param telemetry The buffer
+     */
+    public void setTelemetry(TelemetryBuffer telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Returns the latencies of a stage of the update, over every update since the follower was constructed or
+     * the latencies were reset. The loop thread records into it, so other threads read it through
+     * {@link LatencyHistogram#snapshot(LatencyHistogram)}.
+     *
+     * @param stage The stage
+     * @return The histogram of the latencies of the stage in nanoseconds
+     */
+    public LatencyHistogram getLatency(Stage stage) {
+        return this.latencies[stage.ordinal()];
+    }
+
+    /**
+     * Returns the amount of updates that took longer than the period of the robot, so the loop couldn't keep up.
+     *
+     * @return The amount of overruns
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    public void resetLatencies() {
+        for (LatencyHistogram latency : this.latencies) {
+            latency.reset();
+        }
+        this.overruns = 0;
     }
 
     public double calculateVelocity() {
-        return this.pidController.calculate(this.path.getDistance(this.state.t()), this.path.getPathLength());
+        return this.pidController.calculate(this.path.getDistance(this.t), this.path.getPathLength());
     }
 
     public double calculateOmega() {
-        return this.omegaController.calculate(this.robot.getPosition().getRotation().getDegrees(), this.constants.endHeading);
+        return this.omegaController.calculate(this.getRobotHeadingDegrees(), this.constants.endHeading);
+    }
+
+    @Override
+    public void setClock(Clock clock) {
+        this.clock = clock;
+        this.pidController.setClock(clock);
+        this.omegaController.setClock(clock);
+    }
+
+    public PosePredictor getPredictor() {
+        return predictor;
     }
 
+    @Override
+    public void setPredictor(PosePredictor predictor) {
+        this.predictor = predictor;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets how the follower drives the robot, takes effect on the next {@link #start()} or {@link #reset()}.
+     *
+     * @param mode The new mode
+     */
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Trajectory getTrajectory() {
+        return trajectory;
+    }
+
+    @Override
     public void setRunning(boolean running) {
         this.isRunning = running;
     }
 
+    @Override
     public boolean isRunning() {
         return isRunning;
     }
 
-    private BezierCurve.State getClosestState() {
-        List<BezierCurve.State> points = new ArrayList<>();
+    private void updateClosestState() {
+        double lastT = this.t;
+        double minDistance = Double.MAX_VALUE;
         for (double t = 0; t < 1; t = getNextT(t, this.path.getDifferentBetweenTs())) {
-            if (this.state.t() < 0 || Math.abs(this.state.t() - t) <= 0.3)
-                points.add(new BezierCurve.State(this.path.getPosition(t), t));
+            if (lastT < 0 || Math.abs(lastT - t) <= 0.3) {
+                double x = this.path.getX(t);
+                double y = this.path.getY(t);
+                double distance = Math.hypot(this.getRobotX() - x, this.getRobotY() - y);
+                if (distance < minDistance) {
+                    minDistance = distance;
+                    this.t = t;
+                    this.closestX = x;
+                    this.closestY = y;
+                }
+            }
         }
-        points.sort(Comparator.comparing(s -> this.robot.getPosition().getTranslation().getDistance(s.pose().getTranslation())));
-        return points.get(0);
+    }
+
+    // The pose the loop works with, predicted forward by the latency when there is a predictor
+    private double getRobotX() {
+        return this.predictor != null ? this.predictor.getX() : this.robot.getX();
+    }
+
+    private double getRobotY() {
+        return this.predictor != null ? this.predictor.getY() : this.robot.getY();
+    }
+
+    private double getRobotHeadingDegrees() {
+        return this.predictor != null ? this.predictor.getHeadingDegrees() : this.robot.getHeadingDegrees();
     }
 
     private double getNextT(double t, double diff) {
@@ -107,18 +479,60 @@ public class Follower {
         return pidController;
     }
 
+    @Override
     public BezierCurve.State getState() {
-        return state;
+        return new BezierCurve.State(new Pose2d(this.closestX, this.closestY, this.path.getAngle(this.t)), this.t);
+    }
+
+    @Override
+    public double getT() {
+        return t;
     }
 
+    @Override
     public void reset() {
-        this.state = new BezierCurve.State(new Pose2d(), 0);
+        this.t = 0;
+        this.closestX = 0;
+        this.closestY = 0;
         this.robot.setPosition(new Pose2d(this.path.getStartPoint(), Rotation2d.fromDegrees(0)));
         this.robot.drive(new Pose2d());
         this.robot.setAngle(this.constants.startHeading);
         this.start();
     }
 
+    public enum Mode {
+        /** Drives by the closest point on the path and a PID on the distance left */
+        CLOSEST_POINT,
+        /** Drives by a precomputed trajectory as a feedforward, the PID only corrects the error from it */
+        TRAJECTORY
+    }
+
+    /**
+     * The stages of an update, the ones that run depend on the mode.
+     */
+    public enum Stage {
+        /** Searching the path for the closest point, or sampling the trajectory in trajectory mode */
+        CLOSEST_POINT,
+        /**
+         * Integrating the distance along the path to the closest point and the length of the path, the calls to
+         * {@link Path#getDistance(double)} of the loop
+         */
+        DISTANCE,
+        /**
+         * The direction of the path and the velocity limit of its curvature at the closest point, which is where
+         * the loop calls {@link Path#getCurvatureRadius(double)}
+         */
+        CURVATURE,
+        /** Calculating the PID controllers */
+        PID,
+        /** Driving the robot, which also simulates it unless its physics is stepped separately */
+        DRIVE,
+        /** The whole update, from the prediction to the telemetry */
+        UPDATE
+    }
+
     public record Constants(double startHeading, double endHeading,
                             PIDPreset drivePreset, PIDPreset omegaPreset) {}
+
+    private record Replan(Path path, Trajectory trajectory, double time, int run) {}
 }
@@ -8,7 +8,7 @@ import pathfollower.path.util.Waypoint;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.function.Function;
+import java.util.function.DoubleUnaryOperator;
 
 public abstract class Path {
     protected final double dx;
@@ -18,6 +18,10 @@ public abstract class Path {
 
     protected final Constants constants;
 
+    // Set by the thread that edits the waypoints and read by the others, written after the waypoint so a thread
+    // that sees the new version also sees the waypoint
+    private volatile int version = 0;
+
     public Path(Constants constants, double dx, List<Waypoint> waypoints) {
         this.constants = constants;
         this.dx = dx;
@@ -48,13 +52,42 @@ public abstract class Path {
     }
 
     public Pose2d getVelocity(State state, Pose2d robot, double velocity, double omega) {
-        Translation2d vector = new Translation2d(1 - constants.errorCorrectorPower(), this.getAngle(state.t()))
-                .plus(state.pose().getTranslation().minus(robot.getTranslation()).times(constants.errorCorrectorPower()));
-
-        double curvature = 1 / Math.abs(this.getCurvatureRadius(state.t()));
-        velocity = Math.min(constants.maxVel() - Math.min(curvature, 3.5), velocity);
-
-        return new Pose2d(new Translation2d(velocity, vector.getAngle()), Rotation2d.fromDegrees(omega));
+        double angle = this.getVelocityAngle(state.t(), state.pose().getX(), state.pose().getY(), robot.getX(), robot.getY());
+        velocity = this.limitVelocity(state.t(), velocity);
+
+        return new Pose2d(new Translation2d(velocity * Math.cos(angle), velocity * Math.sin(angle)), Rotation2d.fromDegrees(omega));
+    }
+
+    /**
+     * Returns the direction the robot should drive at, blending the path tangent with the vector back to the
+     * closest point by the error corrector power. Allocation free version of the angle of {@link #getVelocity}.
+     *
+     * @param t The t of the closest point
+     * @param closestX The x of the closest point
+     * @param closestY The y of the closest point
+     * @param robotX The x of the robot
+     * @param robotY The y of the robot
+     * @return The angle of the velocity vector in radians
+     */
+    public double getVelocityAngle(double t, double closestX, double closestY, double robotX, double robotY) {
+        double angle = this.getAngleRadians(t);
+        double x = ((1 - constants.errorCorrectorPower()) * Math.cos(angle)) + ((closestX - robotX) * constants.errorCorrectorPower());
+        double y = ((1 - constants.errorCorrectorPower()) * Math.sin(angle)) + ((closestY - robotY) * constants.errorCorrectorPower());
+        if (Math.hypot(x, y) <= 1e-6)
+            return 0;
+        return Math.atan2(y, x);
+    }
+
+    /**
+     * Limits the velocity by the curvature of the path at the given t.
+     *
+     * @param t The t of the closest point
+     * @param velocity The wanted velocity
+     * @return The limited velocity
+     */
+    public double limitVelocity(double t, double velocity) {
+        double curvature = 1 / Math.abs(this.getCurvatureRadius(t));
+        return Math.min(constants.maxVel() - Math.min(curvature, 3.5), velocity);
     }
 
     public abstract double getX(double t);
@@ -70,42 +103,60 @@ public abstract class Path {
         return new Rotation2d(angle.getX(), angle.getY());
     }
 
+    public double getAngleRadians(double t) {
+        double x = this.getX(t + this.dx) - this.getX(t - this.dx);
+        double y = this.getY(t + this.dx) - this.getY(t - this.dx);
+        if (Math.hypot(x, y) <= 1e-6)
+            return 0;
+        return Math.atan2(y, x);
+    }
+
     public Pose2d getPosition(double t) {
         return new Pose2d(this.getLocation(t), this.getAngle(t));
     }
 
+    // The derivatives are written out instead of going through calculateDerivative so the hot path
+    // doesn't allocate a method reference and box every sample
     public double getXDerivative(double t) {
-        return this.calculateDerivative(t, this::getX);
+        return (this.getX(t + this.dx) - this.getX(t - this.dx)) / (2 * this.dx);
     }
 
     public double getYDerivative(double t) {
-        return this.calculateDerivative(t, this::getY);
+        return (this.getY(t + this.dx) - this.getY(t - this.dx)) / (2 * this.dx);
     }
 
     public double getXSecondDerivative(double t) {
-        return this.calculateDerivative(t, this::getXDerivative);
+        return (this.getXDerivative(t + this.dx) - this.getXDerivative(t - this.dx)) / (2 * this.dx);
     }
 
     public double getYSecondDerivative(double t) {
-        return this.calculateDerivative(t, this::getYDerivative);
+        return (this.getYDerivative(t + this.dx) - this.getYDerivative(t - this.dx)) / (2 * this.dx);
     }
 
-    protected double calculateDerivative(double x, Function<Double, Double> function) {
-        return (function.apply(x + this.dx) - function.apply(x - this.dx)) / (2 * this.dx);
+    protected double calculateDerivative(double x, DoubleUnaryOperator function) {
+        return (function.applyAsDouble(x + this.dx) - function.applyAsDouble(x - this.dx)) / (2 * this.dx);
     }
 
     public double getDistance(double t1, double t2) {
-        return calculateIntegral(t1, t2, t -> Math.hypot(this.getXDerivative(t), this.getYDerivative(t)));
+        double sum = 0;
+        for (double t = t1; t < t2; t += this.dx) {
+            sum += (this.getSpeed(t - this.dx) + this.getSpeed(t + this.dx)) * (0.5 * this.dx);
+        }
+        return sum;
+    }
+
+    private double getSpeed(double t) {
+        return Math.hypot(this.getXDerivative(t), this.getYDerivative(t));
     }
 
     public double getDistance(double t) {
         return this.getDistance(0, t);
     }
 
-    public double calculateIntegral(double a, double b, Function<Double, Double> function) {
+    public double calculateIntegral(double a, double b, DoubleUnaryOperator function) {
         double sum = 0;
         for (double t = a; t < b; t += this.dx) {
-            sum += (function.apply(t - this.dx) + function.apply(t + this.dx)) * (0.5 * this.dx);
+            sum += (function.applyAsDouble(t - this.dx) + function.applyAsDouble(t + this.dx)) * (0.5 * this.dx);
         }
         return sum;
     }
@@ -137,6 +188,18 @@ public abstract class Path {
 
     public void setWaypoint(int index, Waypoint waypoint) {
         this.waypoints.set(index, waypoint);
+        // Only one thread sets the waypoints, so the increment doesn't race with another one
+        this.version++;
+    }
+
+    /**
+     * Returns the amount of times the waypoints were set, so anything built from the path knows when it changed.
+     * The waypoints are only set from one thread at a time, the version can be read from any thread.
+     *
+     * @return The version of the path
+     */
+    public int getVersion() {
+        return this.version;
     }
 
     public double getDifferentBetweenTs() {
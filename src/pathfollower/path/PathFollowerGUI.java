@@ -1,8 +1,16 @@
 package pathfollower.path;
 
+import pathfollower.path.field.ClearanceChecker;
+import pathfollower.path.field.ObstacleMap;
 import pathfollower.path.path.BezierCurve;
+import pathfollower.path.telemetry.LatencyHistogram;
+import pathfollower.path.telemetry.TelemetryBuffer;
+import pathfollower.path.telemetry.TelemetryLogReader;
+import pathfollower.path.telemetry.TelemetryLogWriter;
+import pathfollower.path.telemetry.TelemetryRecord;
 import pathfollower.path.pid.PIDPreset;
 import pathfollower.gui.Frame;
+import pathfollower.gui.TiledImage;
 import pathfollower.gui.types.draw.DrawCentered;
 import pathfollower.gui.types.field.ZeroCenter;
 import pathfollower.math.MathUtil;
@@ -12,11 +20,19 @@ import pathfollower.math.geometry.Rotation2d;
 import pathfollower.math.geometry.Translation2d;
 import pathfollower.path.util.Waypoint;
 
-import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
     private static final boolean IS_CHARGED_UP_FIELD = false;
@@ -25,17 +41,58 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
     private static final Dimension2d DIMENSION = new Dimension2d(1713, 837);
     private static final double PIXELS_IN_ONE_UNIT = convertMaxValueToPixels(DEFAULT_MAX_VALUE);
 
-    private static final double FPS = 20;
+    // The frames are drawn at the refresh rate of the screen, and the follower is updated at the control rate
+    private static final double FPS = 0;
+    private static final double CONTROL_RATE = 200;
+    // The path is drawn with a point about every few pixels, and skips its parts outside the window by a margin
+    // wider than its line and its points
+    private static final double PATH_SAMPLE_PIXELS = 3;
+    private static final double PATH_MARGIN_PIXELS = 10;
+    private static final double PATH_MAX_STEP = 1 / 64d;
     private static final double ROBOT_WIDTH = 0.91;
     private static final double BUMPER_WIDTH = 0.08;
 
+    private static final double FIELD_LENGTH = 16.54;
+    private static final double FIELD_WIDTH = 8.02;
+    private static final double FIELD_RESOLUTION = 0.05;
+    private static final String FIELD_IMAGE = "src/pathfollower/path/util/Field.png";
+
+    private static final File LOG_FILE = new File("telemetry.bin");
+    private static final int LOG_FLUSH_INTERVAL = 100;
+    // How often the telemetry is drained in milliseconds, the buffer holds seconds of the control loop
+    private static final long RECORD_INTERVAL = 50;
+    private static final double REPLAY_SCRUB = 1;
+
     private static final PathChooser PATH = PathChooser.QUINTIC;
 
-    private final Path path;
+    // The path the follower follows, which a replan switches on the loop thread, and dragged on the event thread
+    private volatile Path path;
     private final Robot robot;
 
+    private final Follower.Constants followerConstants;
     private final Follower follower;
 
+    private final ClearanceChecker clearanceChecker;
+    // Checked off the event thread when the path is dragged, and read by the loop thread
+    private volatile ClearanceChecker.Result clearance;
+    private final ExecutorService clearanceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Clearance");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean isClearancePending = new AtomicBoolean(false);
+
+    private final TelemetryBuffer telemetry = new TelemetryBuffer(1024);
+    private volatile boolean isRecording = false;
+
+    private volatile TelemetryLogReader replay;
+    private final TelemetryRecord replayRecord = new TelemetryRecord();
+    private volatile double replayTime = 0;
+
+    // The histograms are copied here one at a time to be shown, so the ones recorded by another thread, like the
+    // frame times of the renderer, are read whole
+    private final LatencyHistogram latencySnapshot = new LatencyHistogram();
+
     private double maxValue = DEFAULT_MAX_VALUE;
 
     public PathFollowerGUI() {
@@ -44,23 +101,38 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
         this.path = PATH.getPath();
 
         this.robot = new Robot(new Pose2d(this.path.getStartPoint(), Rotation2d.fromDegrees(0)),
-                new Robot.Constants(5, 1 / FPS));
+                new Robot.Constants(5, 1 / CONTROL_RATE));
+
+        this.followerConstants = new Follower.Constants(0, 270,
+                new PIDPreset(3, 0, 0, 1, 10),
+                new PIDPreset(2, 0, 0, 5, 10));
+        this.follower = new Follower(this.path, this.robot, this.followerConstants);
+        this.follower.setTelemetry(this.telemetry);
+
+        Thread recorder = new Thread(this::record, "Recorder");
+        recorder.setDaemon(true);
+        recorder.start();
 
-        this.follower = new Follower(this.path, this.robot,
-                new Follower.Constants(0, 270,
-                        new PIDPreset(3, 0, 0, 1, 10),
-                        new PIDPreset(2, 0, 0, 5, 10)));
+        this.clearanceChecker = new ClearanceChecker(new ObstacleMap(-FIELD_LENGTH / 2, -FIELD_WIDTH / 2,
+                FIELD_LENGTH / 2, FIELD_WIDTH / 2, FIELD_RESOLUTION), ROBOT_WIDTH);
+        this.clearance = this.findClearance();
 
         this.follower.start();
         this.start();
     }
 
     public void drawBackground() {
+        // The grid and the path only change on zoom and drag, so they are drawn from cached layers, and the field
+        // image only draws the tiles the window shows at the scale closest to the zoom
         if (IS_CHARGED_UP_FIELD)
-            this.drawImage(new ImageIcon("src/pathfollower/path/util/Field.png").getImage(), 0, 0, DIMENSION.getX(), DIMENSION.getY());
+            this.drawImage(TiledImage.load(FIELD_IMAGE),
+                    new Rectangle2D.Double(-FIELD_LENGTH / 2, -FIELD_WIDTH / 2, FIELD_LENGTH, FIELD_WIDTH));
         else
-            this.drawGrid();
+            this.drawLayer("grid", this.getPixelsInOneUnit(), this::drawGrid);
+        this.drawLayer("path", List.of(this.getPixelsInOneUnit(), this.path, this.path.getVersion()), this::drawPath);
+    }
 
+    private void drawPath() {
 //        for (int i = 0; i < this.path.getWaypoints().size() - 1; i++) {
 //            Color color = new Color(0, (int) (255 * (i / (this.path.getWaypoints().size() - 1d))), 0);
 //            Translation2d[] bezierPoints = this.path.getBezierPoint(this.follower.getState().t(), i);
@@ -70,9 +142,10 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
 //            }
 //        }
 
-        for (double t = this.path.getDifferentBetweenTs(); t < 1; t += this.path.getDifferentBetweenTs()) {
-            this.drawRobotPose(this.path.getLocation(t));
-        }
+        // Drawn like the row of outlined points it used to be drawn with, a dark line under a thinner red one
+        Path2D outline = this.getPathOutline();
+        this.drawShape(outline, convertPixelsToUnits(5), new Color(20, 20, 20));
+        this.drawShape(outline, convertPixelsToUnits(3), Color.RED);
 
         for (Translation2d waypoint : this.path.getWaypoints()) {
             this.drawWaypoint(waypoint);
@@ -96,25 +169,125 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
                 ));
         this.drawPoint(curvature.getX(), curvature.getY(), Math.abs(curvatureRadius), Color.BLUE);
 
-        double bumperRadius = Math.hypot(ROBOT_WIDTH / 2, ROBOT_WIDTH / 2);
-        Translation2d[] bumperEdges = new Translation2d[4];
-        for (int i = 0; i < bumperEdges.length; i++) {
-            double radians = Math.toRadians(45 + (90 * i)) + robot.getRotation().getRadians();
-            bumperEdges[i] = robot.getTranslation().plus(new Translation2d(bumperRadius * Math.cos(radians), bumperRadius * Math.sin(radians)));
+        this.fillPolygon(Color.RED, getEdges(robot, ROBOT_WIDTH));
+        this.fillPolygon(Color.GRAY, getEdges(robot, ROBOT_WIDTH - (2 * BUMPER_WIDTH)));
+
+        ClearanceChecker.Result clearance = this.clearance;
+        if (!clearance.isClear()) {
+            this.drawPolygon(Color.ORANGE, getEdges(new Pose2d(clearance.collisionX(), clearance.collisionY(),
+                    Rotation2d.fromDegrees(clearance.collisionHeading())), ROBOT_WIDTH));
         }
-        this.fillPolygon(Color.RED, bumperEdges);
+    }
 
-        double robotRadius = Math.hypot((ROBOT_WIDTH / 2) - BUMPER_WIDTH, (ROBOT_WIDTH / 2) - BUMPER_WIDTH);
-        Translation2d[] robotEdges = new Translation2d[4];
-        for (int i = 0; i < robotEdges.length; i++) {
-            double radians = Math.toRadians(45 + (90 * i)) + robot.getRotation().getRadians();
-            robotEdges[i] = robot.getTranslation().plus(new Translation2d(robotRadius * Math.cos(radians), robotRadius * Math.sin(radians)));
+    /**
+     * Shows the recorded state of the robot at the replay time instead of the simulated robot.
+     *
+     * @param replay The log being replayed
+     */
+    public void displayReplay(TelemetryLogReader replay) {
+        long index = replay.seek(replay.getStartTime() + this.replayTime);
+        if (index < 0)
+            return;
+        TelemetryRecord record = replay.read(index, this.replayRecord);
+
+        this.fillPoint(record.setpointX, record.setpointY, convertPixelsToUnits(5), Color.GREEN);
+        Pose2d robot = new Pose2d(record.x, record.y, Rotation2d.fromDegrees(record.heading));
+        this.fillPolygon(Color.RED, getEdges(robot, ROBOT_WIDTH));
+        this.fillPolygon(Color.GRAY, getEdges(robot, ROBOT_WIDTH - (2 * BUMPER_WIDTH)));
+
+        this.writeTexts(
+                "Replay: " + MathUtil.limitDot(record.time - replay.getStartTime(), 2) + " / "
+                        + MathUtil.limitDot(replay.getEndTime() - replay.getStartTime(), 2) + " s",
+                "T: " + MathUtil.limitDot(record.t, 4),
+                "Pose: (" + MathUtil.limitDot(record.x, 3) + ", " + MathUtil.limitDot(record.y, 3) + ")",
+                "Heading: " + MathUtil.limitDot(record.heading, 3) + " Deg",
+                "Velocity: " + MathUtil.limitDot(Math.hypot(record.velocityX, record.velocityY), 3) + "m/s",
+                "Setpoint Velocity: " + MathUtil.limitDot(record.setpointVelocity, 3) + "m/s",
+                "Omega Velocity: " + MathUtil.limitDot(record.omega, 3) + " deg/s",
+                "Position Error: " + MathUtil.limitDot(record.positionError, 3) + "m",
+                "Heading Error: " + MathUtil.limitDot(record.headingError, 3) + " Deg"
+        );
+    }
+
+    // Drains the telemetry of the follower, into the log while recording
+    private void record() {
+        TelemetryRecord record = new TelemetryRecord();
+        TelemetryLogWriter writer = null;
+        while (true) {
+            try {
+                if (this.isRecording && writer == null) {
+                    writer = new TelemetryLogWriter(LOG_FILE, LOG_FLUSH_INTERVAL);
+                } else if (!this.isRecording && writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+
+                if (writer != null) {
+                    writer.drain(this.telemetry, record);
+                } else {
+                    while (this.telemetry.poll(record)) {
+                        // Nothing to keep while not recording
+                    }
+                }
+
+                Thread.sleep(RECORD_INTERVAL);
+            } catch (IOException e) {
+                // A log that can't be written only stops the recording, the recorder keeps draining the telemetry
+                this.isRecording = false;
+                if (writer != null) {
+                    try {
+                        writer.close();
+                    } catch (IOException closeException) {
+                        e.addSuppressed(closeException);
+                    }
+                    writer = null;
+                }
+                System.err.println("Stopped recording the telemetry to " + LOG_FILE + ": " + e);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void toggleReplay() {
+        try {
+            if (this.replay != null) {
+                TelemetryLogReader replay = this.replay;
+                this.replay = null;
+                replay.close();
+            } else if (!this.isRecording && LOG_FILE.isFile()) {
+                this.replayTime = 0;
+                this.replay = new TelemetryLogReader(LOG_FILE);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        this.fillPolygon(Color.GRAY, robotEdges);
+    }
+
+    /**
+     * Checks the clearance of the path on the clearance thread, so dragging a waypoint doesn't wait for it.
+     * The drags while a check is waiting to run are all checked by that check, since it checks the path as it
+     * is when it runs.
+     */
+    private void checkClearance() {
+        if (this.isClearancePending.getAndSet(true))
+            return;
+        this.clearanceExecutor.execute(() -> {
+            this.isClearancePending.set(false);
+            this.clearance = this.findClearance();
+        });
+    }
+
+    private ClearanceChecker.Result findClearance() {
+        return this.clearanceChecker.check(this.path,
+                this.followerConstants.startHeading(), this.followerConstants.endHeading());
     }
 
     public void writeValues() {
+        ClearanceChecker.Result clearance = this.clearance;
         String[] texts = {
+                "Mode: " + this.follower.getMode() + (this.isRecording ? " (Recording)" : ""),
+                "Clearance: " + (clearance.isClear() ? "Clear" : "Hits at T " + MathUtil.limitDot(clearance.collisionT(), 4)),
                 "T: " + MathUtil.limitDot(this.follower.getState().t(), 4),
                 "Pose: (" + MathUtil.limitDot(this.robot.getPosition().getTranslation().getX(), 3) + ", "
                         + MathUtil.limitDot(this.robot.getPosition().getTranslation().getY(), 3) + ")",
@@ -125,9 +298,35 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
                 "Acceleration: " + MathUtil.limitDot(this.robot.getAcceleration(), 3) + "m/s",
                 "Omega Velocity: " + MathUtil.limitDot(this.robot.getVelocity().getRotation().getDegrees(), 3) + " deg/s",
                 "Distance: " + MathUtil.limitDot(this.path.getDistance(0, this.follower.getState().t()), 3) + " / " + MathUtil.limitDot(this.path.getPathLength(), 3),
-                "Curvature Radius: " + MathUtil.limitDot(this.path.getCurvatureRadius(this.follower.getState().t()), 3)
+                "Curvature Radius: " + MathUtil.limitDot(this.path.getCurvatureRadius(this.follower.getState().t()), 3),
+                "Latency (p50 / p99 / max):",
+                this.getLatencyText("Closest Point", Follower.Stage.CLOSEST_POINT),
+                this.getLatencyText("Distance", Follower.Stage.DISTANCE),
+                this.getLatencyText("Curvature", Follower.Stage.CURVATURE),
+                this.getLatencyText("PID", Follower.Stage.PID),
+                this.getLatencyText("Drive", Follower.Stage.DRIVE),
+                this.getLatencyText("Update", Follower.Stage.UPDATE),
+                "Overruns: " + this.follower.getOverruns(),
+                this.getRenderText()
         };
+        this.writeTexts(texts);
+    }
+
+    private String getLatencyText(String name, Follower.Stage stage) {
+        LatencyHistogram latency = this.follower.getLatency(stage).snapshot(this.latencySnapshot);
+        return "  " + name + ": " + MathUtil.limitDot(latency.getMedian() / 1e3, 1) + " / "
+                + MathUtil.limitDot(latency.getPercentile(99) / 1e3, 1) + " / "
+                + MathUtil.limitDot(latency.getMax() / 1e3, 1) + " us";
+    }
+
+    private String getRenderText() {
+        LatencyHistogram frameTimes = this.getFrameTimes().snapshot(this.latencySnapshot);
+        return "Render: " + MathUtil.limitDot(frameTimes.getCount() > 0 ? 1e9 / frameTimes.getMean() : 0, 1) + " FPS, p99 frame "
+                + MathUtil.limitDot(frameTimes.getPercentile(99) / 1e6, 1) + " ms, "
+                + this.getMissedFrames() + " missed";
+    }
 
+    private void writeTexts(String... texts) {
         double size = convertPixelsToUnits(20);
         double space = convertPixelsToUnits(10);
         for (int i = 0; i < texts.length; i++) {
@@ -138,14 +337,17 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
     @Override
     public void mouseDragged(MouseEvent e) {
         Translation2d mouseLocation = this.getMouseTranslation(e);
+        // Read once, so a replan while dragging doesn't move a waypoint of the other path
+        Path path = this.path;
 
-        for (int i = this.path.getWaypoints().size() - 1; i >= 0; i--) {
-            if (this.path.getWaypoints().get(i).getDistance(mouseLocation) <= convertPixelsToUnits(50)) {
-                Waypoint lastWaypoint = this.path.getWaypoint(i);
+        for (int i = path.getWaypoints().size() - 1; i >= 0; i--) {
+            if (path.getWaypoints().get(i).getDistance(mouseLocation) <= convertPixelsToUnits(50)) {
+                Waypoint lastWaypoint = path.getWaypoint(i);
                 double heading = lastWaypoint.getHeading();
                 double movementAngle = lastWaypoint.getMovementAngle();
 
-                this.path.setWaypoint(i, new Waypoint(mouseLocation, heading, movementAngle));
+                path.setWaypoint(i, new Waypoint(mouseLocation, heading, movementAngle));
+                this.checkClearance();
                 break;
             }
         }
@@ -157,6 +359,18 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
             this.follower.reset();
         } else if (e.getKeyChar() == 't' || e.getKeyChar() == 'T') {
             this.follower.setRunning(!this.follower.isRunning());
+        } else if (e.getKeyChar() == 'm' || e.getKeyChar() == 'M') {
+            this.follower.setMode(this.follower.getMode() == Follower.Mode.CLOSEST_POINT ? Follower.Mode.TRAJECTORY : Follower.Mode.CLOSEST_POINT);
+            this.follower.reset();
+        } else if (e.getKeyChar() == 'l' || e.getKeyChar() == 'L') {
+            if (this.replay == null)
+                this.isRecording = !this.isRecording;
+        } else if (e.getKeyChar() == 'p' || e.getKeyChar() == 'P') {
+            this.toggleReplay();
+        } else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+            this.replayTime = Math.max(0, this.replayTime - REPLAY_SCRUB);
+        } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+            this.replayTime += REPLAY_SCRUB;
         }
     }
 
@@ -166,18 +380,34 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
     }
 
     public void start() {
+        this.startRendering(FPS);
+
         double t = 0;
         int direction = 1;
+        long period = (long) (1e9 / CONTROL_RATE);
+        long framePeriod = (long) (1e9 / this.getRenderingRate());
+        long deadline = System.nanoTime();
+        long lastFrame = deadline - framePeriod;
 
         while (true) {
-            this.setPixelsInOneUnit(convertMaxValueToPixels(this.maxValue));
+            TelemetryLogReader replay = this.replay;
+            if (replay != null)
+                this.replayTime = Math.min(replay.getEndTime() - replay.getStartTime(), this.replayTime + (1 / CONTROL_RATE));
+            else
+                this.follower.update();
+
+            // The update switches to a replanned path, which is drawn, dragged and checked from then on
+            if (this.follower.getPath() != this.path) {
+                this.path = this.follower.getPath();
+                this.checkClearance();
+            }
 
-            this.clearFrame();
-            this.drawBackground();
-            this.follower.update();
-            this.displayRobot();
-            this.writeValues();
-            this.repaint();
+            // The loop runs faster than the screen, so a frame is only drawn as often as the renderer shows one
+            long now = System.nanoTime();
+            if (now - lastFrame >= framePeriod) {
+                lastFrame = now;
+                this.drawFrame(replay);
+            }
 
             t += this.path.getDifferentBetweenTs() * direction;
             if (t > 1) {
@@ -187,17 +417,64 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
                 t = 0;
                 direction = 1;
             }
-            try {
-                Thread.sleep((long) (1000 / FPS));
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
+
+            deadline = Math.max(deadline + period, System.nanoTime());
+            LockSupport.parkNanos(deadline - System.nanoTime());
         }
     }
 
-    private void drawRobotPose(Translation2d pose) {
-        this.fillPoint(pose.getX(), pose.getY(), convertPixelsToUnits(2), Color.RED);
-        this.drawPoint(pose.getX(), pose.getY(), convertPixelsToUnits(2), new Color(20, 20, 20));
+    private void drawFrame(TelemetryLogReader replay) {
+        this.setPixelsInOneUnit(convertMaxValueToPixels(this.maxValue));
+
+        this.clearFrame();
+        this.drawBackground();
+        if (replay != null) {
+            this.displayReplay(replay);
+        } else {
+            this.displayRobot();
+            this.writeValues();
+        }
+        this.showFrame();
+    }
+
+    /**
+     * Builds the part of the path the window shows as one polyline, with a point about every few pixels at the
+     * current zoom. The steps along the path are as long as the distance they move the point, and outside the
+     * window as long as the distance from the window, so the amount of points depends on the size of the window
+     * and not on the length of the path or the amount of waypoints.
+     *
+     * @return The polyline in field units, broken where the path leaves the window
+     */
+    private Path2D getPathOutline() {
+        Rectangle2D viewport = this.getViewport();
+        double margin = convertPixelsToUnits(PATH_MARGIN_PIXELS);
+        double minX = viewport.getMinX() - margin;
+        double minY = viewport.getMinY() - margin;
+        double maxX = viewport.getMaxX() + margin;
+        double maxY = viewport.getMaxY() + margin;
+        double sample = convertPixelsToUnits(PATH_SAMPLE_PIXELS);
+
+        Path2D outline = new Path2D.Double();
+        boolean isInside = false;
+        double t = 0;
+        while (true) {
+            double x = this.path.getX(t);
+            double y = this.path.getY(t);
+            double distance = Math.hypot(Math.max(0, Math.max(minX - x, x - maxX)), Math.max(0, Math.max(minY - y, y - maxY)));
+            if (distance == 0) {
+                if (isInside)
+                    outline.lineTo(x, y);
+                else
+                    outline.moveTo(x, y);
+            }
+            isInside = distance == 0;
+            if (t >= 1)
+                break;
+
+            double speed = Math.hypot(this.path.getXDerivative(t), this.path.getYDerivative(t));
+            t = Math.min(1, t + Math.min(PATH_MAX_STEP, Math.max(sample, distance) / speed));
+        }
+        return outline;
     }
 
     private void drawWaypoint(Translation2d waypoint) {
@@ -232,6 +509,16 @@ public class PathFollowerGUI extends Frame implements ZeroCenter, DrawCentered {
         }
     }
 
+    private static Translation2d[] getEdges(Pose2d pose, double width) {
+        double radius = Math.hypot(width / 2, width / 2);
+        Translation2d[] edges = new Translation2d[4];
+        for (int i = 0; i < edges.length; i++) {
+            double radians = Math.toRadians(45 + (90 * i)) + pose.getRotation().getRadians();
+            edges[i] = pose.getTranslation().plus(new Translation2d(radius * Math.cos(radians), radius * Math.sin(radians)));
+        }
+        return edges;
+    }
+
     private static double convertMaxValueToPixels(double maxValue) {
         return (DIMENSION.getX() / maxValue) / 2;
     }
@@ -0,0 +1,42 @@
+package pathfollower.path;
+
+import pathfollower.util.Clock;
+
+/**
+ * Something that drives a {@link Robot} along a {@link Path}, so different controllers can be swapped and
+ * compared on the same robot and path.
+ */
+public interface PathTracker {
+    void start();
+
+    void update();
+
+    void reset();
+
+    /**
+     * Sets the clock the tracker and its controllers are timed by.
+     *
+     * @param clock The new clock
+     */
+    void setClock(Clock clock);
+
+    /**
+     * Sets the predictor used to compensate the latency of the loop, or null to use the pose of the robot as is.
+     *
+     * @param predictor The new predictor
+     */
+    void setPredictor(PosePredictor predictor);
+
+    void setRunning(boolean running);
+
+    boolean isRunning();
+
+    /**
+     * Returns the t of the point on the path the tracker is currently driving by.
+     *
+     * @return The current t
+     */
+    double getT();
+
+    Path.State getState();
+}
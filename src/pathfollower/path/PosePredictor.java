@@ -0,0 +1,130 @@
+package pathfollower.path;
+
+import pathfollower.math.MathUtil;
+
+/**
+ * Predicts where the robot will be when the output of the current loop is applied, by moving its pose
+ * forward by the latency with its current velocity as a twist, the same as {@link
+ * pathfollower.math.geometry.Pose2d#exp}. The prediction is kept in primitives so it doesn't allocate.
+ */
+public class PosePredictor {
+    // Pauses longer than this (breakpoints, the window being dragged) aren't counted as latency
+    private static final double MAX_MEASURED_PERIOD = 0.5;
+
+    private double latency;
+    private final boolean measureLoopPeriod;
+
+    private double loopPeriod = 0;
+    private long lastPrediction = 0;
+
+    private double x;
+    private double y;
+    private double heading;
+
+    /**
+     * Constructs a predictor with a fixed latency.
+     *
+     * @param latency The time between reading the pose and applying the output, in seconds
+     */
+    public PosePredictor(double latency) {
+        this(latency, false);
+    }
+
+    /**
+     * Constructs a predictor.
+     *
+     * @param latency The time between reading the pose and applying the output, in seconds
+     * @param measureLoopPeriod Whether to add the measured time between predictions to the latency, since the
+     *                          output of a loop is only applied by the next one
+     */
+    public PosePredictor(double latency, boolean measureLoopPeriod) {
+        this.latency = latency;
+        this.measureLoopPeriod = measureLoopPeriod;
+    }
+
+    /**
+     * Predicts the pose of the robot after the latency.
+     *
+     * @param robot The robot to predict
+     */
+    public void predict(Robot robot) {
+        if (this.measureLoopPeriod) {
+            long now = System.nanoTime();
+            if (this.lastPrediction != 0) {
+                double period = (now - this.lastPrediction) / 1e9;
+                if (period <= MAX_MEASURED_PERIOD)
+                    this.loopPeriod = period;
+            }
+            this.lastPrediction = now;
+        }
+
+        this.predict(robot.getX(), robot.getY(), Math.toRadians(robot.getHeadingDegrees()),
+                robot.getVelocityX(), robot.getVelocityY(), Math.toRadians(robot.getOmega()), this.getLatency());
+    }
+
+    /**
+     * Predicts a pose after the given time with a field relative velocity.
+     *
+     * @param x The x of the pose
+     * @param y The y of the pose
+     * @param heading The heading of the pose in radians
+     * @param velocityX The field relative x velocity
+     * @param velocityY The field relative y velocity
+     * @param omega The angular velocity in rad/s
+     * @param time The time to predict forward in seconds
+     */
+    public void predict(double x, double y, double heading, double velocityX, double velocityY, double omega, double time) {
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+
+        // The twist is in the robot's coordinate frame
+        double dx = ((velocityX * cos) + (velocityY * sin)) * time;
+        double dy = ((velocityY * cos) - (velocityX * sin)) * time;
+        double dtheta = omega * time;
+
+        double s;
+        double c;
+        if (Math.abs(dtheta) < 1E-9) {
+            s = 1.0 - 1.0 / 6.0 * dtheta * dtheta;
+            c = 0.5 * dtheta;
+        } else {
+            s = Math.sin(dtheta) / dtheta;
+            c = (1 - Math.cos(dtheta)) / dtheta;
+        }
+        double translationX = (dx * s) - (dy * c);
+        double translationY = (dx * c) + (dy * s);
+
+        this.x = x + (translationX * cos) - (translationY * sin);
+        this.y = y + (translationX * sin) + (translationY * cos);
+        this.heading = MathUtil.angleModulus(heading + dtheta);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getHeadingDegrees() {
+        return Math.toDegrees(heading);
+    }
+
+    public double getHeadingRadians() {
+        return heading;
+    }
+
+    /**
+     * Returns the latency the robot is predicted by, including the measured loop period if it is measured.
+     *
+     * @return The latency in seconds
+     */
+    public double getLatency() {
+        return this.latency + this.loopPeriod;
+    }
+
+    public void setLatency(double latency) {
+        this.latency = latency;
+    }
+}
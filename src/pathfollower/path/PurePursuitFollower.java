@@ -0,0 +1,179 @@
+package pathfollower.path;
+
+import pathfollower.math.geometry.Pose2d;
+import pathfollower.math.geometry.Rotation2d;
+import pathfollower.path.pid.PIDPreset;
+import pathfollower.path.pid.ProfiledPIDController;
+import pathfollower.path.pid.TrapezoidProfile;
+import pathfollower.util.Clock;
+
+/**
+ * Adaptive pure pursuit, the robot drives towards a point that is a lookahead distance ahead of its
+ * projection on the path, and the lookahead grows with the speed of the robot.
+ */
+public class PurePursuitFollower implements PathTracker {
+    private final Path path;
+    private final Robot robot;
+
+    private final Constants constants;
+
+    private final ProfiledPIDController omegaController;
+
+    private PosePredictor predictor;
+
+    private ArcLengthTable table;
+    private double[] velocityLimits;
+
+    private int index = -1;
+    private double distance = 0;
+    private double lookaheadX = 0;
+    private double lookaheadY = 0;
+
+    private boolean isRunning = true;
+
+    public PurePursuitFollower(Path path, Robot robot, Constants constants) {
+        this.path = path;
+        this.robot = robot;
+
+        this.constants = constants;
+
+        this.omegaController = new ProfiledPIDController(constants.omegaPreset.getkP(), constants.omegaPreset.getkI(), constants.omegaPreset.getkD(),
+                new TrapezoidProfile.Constraints(constants.omegaPreset.getMaxVel(), constants.omegaPreset.getMaxAccel()));
+        this.omegaController.enableContinuousInput(0, 360);
+    }
+
+    @Override
+    public void start() {
+        // The path can change between runs, so the table is only built when starting
+        this.table = new ArcLengthTable(this.path);
+        this.velocityLimits = new double[this.table.size()];
+        for (int i = 0; i < this.velocityLimits.length; i++) {
+            this.velocityLimits[i] = this.path.limitVelocity(this.table.getSampleT(i), this.path.getConstants().maxVel());
+        }
+
+        this.index = -1;
+        this.omegaController.reset(this.robot.getHeadingDegrees(), 0);
+    }
+
+    @Override
+    public void update() {
+        if (this.predictor != null)
+            this.predictor.predict(this.robot);
+
+        if (this.index < 0) {
+            this.index = this.table.getClosestIndex(this.getRobotX(), this.getRobotY(), 0, this.table.size() - 1);
+            this.distance = this.table.project(this.getRobotX(), this.getRobotY(), this.index);
+        } else {
+            // Only searches up to the farthest lookahead and never back, so the robot doesn't jump between
+            // parts of the path that pass near each other
+            int to = this.table.getIndex(this.distance + this.constants.maxLookahead) + 1;
+            this.index = this.table.getClosestIndex(this.getRobotX(), this.getRobotY(), this.index, to);
+            this.distance = Math.max(this.distance, this.table.project(this.getRobotX(), this.getRobotY(), this.index));
+        }
+
+        double speed = this.robot.getSpeed();
+        double lookahead = Math.max(this.constants.minLookahead,
+                Math.min(this.constants.maxLookahead, this.constants.minLookahead + (this.constants.lookaheadGain * speed)));
+        double lookaheadDistance = Math.min(this.table.getLength(), this.distance + lookahead);
+        this.lookaheadX = this.table.getX(lookaheadDistance);
+        this.lookaheadY = this.table.getY(lookaheadDistance);
+
+        if (!this.isRunning)
+            return;
+
+        double directionX = this.lookaheadX - this.getRobotX();
+        double directionY = this.lookaheadY - this.getRobotY();
+        double directionNorm = Math.hypot(directionX, directionY);
+
+        double period = this.robot.getConstants().period();
+        double maxAccel = this.path.getConstants().maxAccel();
+        // Leaves enough distance to stop at the end of the path
+        double distanceLeft = (this.table.getLength() - lookaheadDistance) + directionNorm;
+        double velocity = Math.min(this.velocityLimits[this.index], Math.sqrt(2 * maxAccel * distanceLeft));
+        velocity = Math.min(velocity, speed + (maxAccel * period));
+        // Doesn't pass the lookahead point in one period where the path turns back on itself
+        velocity = Math.min(velocity, directionNorm / period);
+
+        double velocityX = 0;
+        double velocityY = 0;
+        if (directionNorm > 1e-6) {
+            velocityX = velocity * (directionX / directionNorm);
+            velocityY = velocity * (directionY / directionNorm);
+        }
+
+        double omega = this.omegaController.calculate(this.getRobotHeadingDegrees(), this.constants.endHeading);
+        this.robot.drive(velocityX, velocityY, omega);
+    }
+
+    @Override
+    public void reset() {
+        this.robot.setPosition(new Pose2d(this.path.getStartPoint(), Rotation2d.fromDegrees(0)));
+        this.robot.drive(0, 0, 0);
+        this.robot.setAngle(this.constants.startHeading);
+        this.start();
+    }
+
+    @Override
+    public void setClock(Clock clock) {
+        this.omegaController.setClock(clock);
+    }
+
+    @Override
+    public void setPredictor(PosePredictor predictor) {
+        this.predictor = predictor;
+    }
+
+    @Override
+    public void setRunning(boolean running) {
+        this.isRunning = running;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return isRunning;
+    }
+
+    @Override
+    public double getT() {
+        return this.index < 0 ? 0 : this.table.getT(this.distance);
+    }
+
+    @Override
+    public Path.State getState() {
+        double t = this.getT();
+        return new Path.State(this.path.getPosition(t), t);
+    }
+
+    public PosePredictor getPredictor() {
+        return predictor;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public double getLookaheadX() {
+        return lookaheadX;
+    }
+
+    public double getLookaheadY() {
+        return lookaheadY;
+    }
+
+    // The pose the loop works with, predicted forward by the latency when there is a predictor
+    private double getRobotX() {
+        return this.predictor != null ? this.predictor.getX() : this.robot.getX();
+    }
+
+    private double getRobotY() {
+        return this.predictor != null ? this.predictor.getY() : this.robot.getY();
+    }
+
+    private double getRobotHeadingDegrees() {
+        return this.predictor != null ? this.predictor.getHeadingDegrees() : this.robot.getHeadingDegrees();
+    }
+
+    public record Constants(double startHeading, double endHeading,
+                            double minLookahead, double maxLookahead, double lookaheadGain,
+                            PIDPreset omegaPreset) {}
+}
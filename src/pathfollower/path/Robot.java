@@ -1,61 +1,202 @@
 package pathfollower.path;
 
 import pathfollower.math.geometry.*;
+import pathfollower.util.Clock;
 
 public class Robot {
-    private Pose2d position;
-    private Pose2d velocity;
+    // The state is kept in primitives so driving the robot every loop doesn't allocate,
+    // the Pose2d getters build a new pose only when asked for one
+    private double x;
+    private double y;
+    private double heading;
 
-    private Pose2d lastVelocity = new Pose2d();
+    // The velocity is commanded relative to the robot, like a swerve drive does, so the robot turns
+    // while it moves instead of keeping its field relative direction between commands
+    private double robotVelocityX = 0;
+    private double robotVelocityY = 0;
+    private double omega = 0;
+
+    private double lastSpeed = 0;
 
     private final Constants constants;
+    private final PosePredictor integrator = new PosePredictor(0);
+
+    private boolean isSteppedByDrive = true;
+    private double accumulator = 0;
+    private double time = 0;
 
+    private Clock clock = Clock.SYSTEM;
     private double difference = 0;
-    private long lastUpdate = 0;
+    private double lastUpdate = 0;
 
     public Robot(Pose2d position, Constants constants) {
-        this.position = position;
-        this.velocity = new Pose2d();
+        this.setPosition(position);
         this.constants = constants;
     }
 
     public void drive(Pose2d velocity) {
-        this.lastVelocity = this.velocity;
-        this.difference = (System.currentTimeMillis() - this.lastUpdate) / 1000d;
+        this.drive(velocity.getX(), velocity.getY(), velocity.getRotation().getDegrees());
+    }
+
+    /**
+     * Commands the robot to drive with a field relative velocity, and simulates it for one period unless
+     * the physics is stepped separately.
+     *
+     * @param velocityX The field relative x velocity in m/s
+     * @param velocityY The field relative y velocity in m/s
+     * @param omega The angular velocity in deg/s
+     */
+    public void drive(double velocityX, double velocityY, double omega) {
+        this.lastSpeed = this.getSpeed();
+        this.difference = this.clock.getTime() - this.lastUpdate;
+
+        double speed = Math.hypot(velocityX, velocityY);
+        if (speed > constants.maxVel) {
+            velocityX *= constants.maxVel / speed;
+            velocityY *= constants.maxVel / speed;
+        }
 
-        if (velocity.getTranslation().getNorm() > constants.maxVel) {
-            velocity = new Pose2d(
-                    new Translation2d(constants.maxVel, velocity.getTranslation().getAngle()),
-                    velocity.getRotation());
+        double cos = Math.cos(this.heading);
+        double sin = Math.sin(this.heading);
+        this.robotVelocityX = (velocityX * cos) + (velocityY * sin);
+        this.robotVelocityY = (velocityY * cos) - (velocityX * sin);
+        this.omega = omega;
+
+        if (this.isSteppedByDrive)
+            this.advance(constants.period);
+
+        this.lastUpdate = this.clock.getTime();
+    }
+
+    /**
+     * Simulates the robot for the given time with fixed physics steps. Time that doesn't fill a whole step
+     * is kept for the next call, so the physics rate doesn't depend on how often this is called.
+     *
+     * @param time The time to simulate in seconds
+     */
+    public void advance(double time) {
+        double physicsPeriod = constants.getPhysicsPeriod();
+        this.accumulator += time;
+        // The epsilon keeps the last substep of a period from being lost to rounding
+        while (this.accumulator >= physicsPeriod - 1e-12) {
+            this.step(physicsPeriod);
+            this.accumulator -= physicsPeriod;
         }
+    }
 
-        this.position = new Pose2d(
-                        this.position.getTranslation().plus(velocity.getTranslation().times(constants.period)),
-                this.position.getRotation().rotateBy(Rotation2d.fromDegrees(velocity.getRotation().getDegrees() * constants.period)));
-        this.velocity = velocity;
+    /**
+     * Simulates one physics step by moving the robot along the twist of its velocity, which is exact for a
+     * constant robot relative velocity instead of moving in a straight line.
+     *
+     * @param time The length of the step in seconds
+     */
+    public void step(double time) {
+        this.integrator.predict(this.x, this.y, this.heading,
+                this.getVelocityX(), this.getVelocityY(), Math.toRadians(this.omega), time);
+        this.x = this.integrator.getX();
+        this.y = this.integrator.getY();
+        this.heading = this.integrator.getHeadingRadians();
+        this.time += time;
+    }
+
+    /**
+     * Sets whether drive() simulates the robot for one period, or the physics is stepped separately with
+     * {@link #advance(double)}.
+     *
+     * @param steppedByDrive Whether drive() steps the physics
+     */
+    public void setSteppedByDrive(boolean steppedByDrive) {
+        this.isSteppedByDrive = steppedByDrive;
+    }
+
+    public boolean isSteppedByDrive() {
+        return isSteppedByDrive;
+    }
 
-        this.lastUpdate = System.currentTimeMillis();
+    public void setClock(Clock clock) {
+        this.clock = clock;
     }
 
     public void setAngle(double degrees) {
-        this.position = new Pose2d(this.position.getTranslation(), Rotation2d.fromDegrees(degrees));
+        this.heading = Math.toRadians(degrees);
     }
 
     public double getAcceleration() {
-        return (this.velocity.getTranslation().getNorm() - this.lastVelocity.getTranslation().getNorm()) / this.difference;
+        return (this.getSpeed() - this.lastSpeed) / this.difference;
     }
 
     public Pose2d getPosition() {
-        return position;
+        return new Pose2d(this.x, this.y, Rotation2d.fromRadians(this.heading));
     }
 
     public void setPosition(Pose2d position) {
-        this.position = position;
+        this.x = position.getX();
+        this.y = position.getY();
+        this.heading = position.getRotation().getRadians();
     }
 
     public Pose2d getVelocity() {
-        return velocity;
+        return new Pose2d(this.getVelocityX(), this.getVelocityY(), Rotation2d.fromDegrees(this.omega));
     }
 
-    public record Constants(double maxVel, double period) {}
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getHeadingDegrees() {
+        return Math.toDegrees(heading);
+    }
+
+    public double getVelocityX() {
+        return (this.robotVelocityX * Math.cos(this.heading)) - (this.robotVelocityY * Math.sin(this.heading));
+    }
+
+    public double getVelocityY() {
+        return (this.robotVelocityX * Math.sin(this.heading)) + (this.robotVelocityY * Math.cos(this.heading));
+    }
+
+    public double getOmega() {
+        return omega;
+    }
+
+    public double getSpeed() {
+        return Math.hypot(this.robotVelocityX, this.robotVelocityY);
+    }
+
+    /**
+     * Returns the simulated time, which only advances with the physics steps.
+     *
+     * @return The simulated time in seconds
+     */
+    public double getTime() {
+        return time;
+    }
+
+    public Constants getConstants() {
+        return constants;
+    }
+
+    /**
+     * @param maxVel The max velocity of the robot in m/s
+     * @param period The period drive() simulates the robot for in seconds
+     * @param substeps The amount of physics steps in one period
+     */
+    public record Constants(double maxVel, double period, int substeps) {
+        public Constants {
+            if (substeps < 1)
+                throw new IllegalArgumentException("Robot must have at least one substep!");
+        }
+
+        public Constants(double maxVel, double period) {
+            this(maxVel, period, 1);
+        }
+
+        public double getPhysicsPeriod() {
+            return this.period / this.substeps;
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package pathfollower.path;
+
+import pathfollower.math.MathUtil;
+
+/**
+ * A time parameterized version of a path. The path is sampled once, the velocity at every sample is
+ * limited by the curvature, the max velocity and the max acceleration of the path and then every sample
+ * gets the time the robot should be at it.
+ */
+public class Trajectory {
+    // Keeps tight curves from limiting the velocity to zero, which would never reach the next sample
+    private static final double MIN_VELOCITY = 0.01;
+
+    private final double[] times;
+    private final double[] ts;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] velocities;
+    private final double[] angles;
+
+    public Trajectory(Path path) {
+        this(path, path.getDifferentBetweenTs());
+    }
+
+    public Trajectory(Path path, double differentBetweenTs) {
+        this(path, differentBetweenTs, 0);
+    }
+
+    /**
+     * Constructs a trajectory that starts at the given velocity instead of standing, for a robot that is
+     * already driving when it starts the path.
+     *
+     * @param path The path
+     * @param differentBetweenTs The difference between the t of two samples
+     * @param startVelocity The velocity of the robot at the start of the path in m/s
+     */
+    public Trajectory(Path path, double differentBetweenTs, double startVelocity) {
+        int size = (int) Math.ceil(1 / differentBetweenTs) + 1;
+
+        this.times = new double[size];
+        this.ts = new double[size];
+        this.xs = new double[size];
+        this.ys = new double[size];
+        this.velocities = new double[size];
+        this.angles = new double[size];
+
+        double[] distances = new double[size];
+        for (int i = 0; i < size; i++) {
+            double t = Math.min(1, i * differentBetweenTs);
+            this.ts[i] = t;
+            this.xs[i] = path.getX(t);
+            this.ys[i] = path.getY(t);
+            this.angles[i] = path.getAngleRadians(t);
+            this.velocities[i] = Math.max(MIN_VELOCITY, path.limitVelocity(t, path.getConstants().maxVel()));
+            if (i > 0)
+                distances[i] = Math.hypot(this.xs[i] - this.xs[i - 1], this.ys[i] - this.ys[i - 1]);
+        }
+
+        // The robot ends the path standing, and starts it standing unless it is already driving
+        double maxAccel = path.getConstants().maxAccel();
+        this.velocities[0] = Math.min(this.velocities[0], Math.max(0, startVelocity));
+        for (int i = 1; i < size; i++) {
+            this.velocities[i] = Math.min(this.velocities[i],
+                    Math.sqrt((this.velocities[i - 1] * this.velocities[i - 1]) + (2 * maxAccel * distances[i])));
+        }
+        this.velocities[size - 1] = 0;
+        for (int i = size - 2; i >= 0; i--) {
+            this.velocities[i] = Math.min(this.velocities[i],
+                    Math.sqrt((this.velocities[i + 1] * this.velocities[i + 1]) + (2 * maxAccel * distances[i + 1])));
+        }
+
+        for (int i = 1; i < size; i++) {
+            double velocity = this.velocities[i - 1] + this.velocities[i];
+            this.times[i] = this.times[i - 1] + (velocity > 0 ? (2 * distances[i]) / velocity : 0);
+        }
+    }
+
+    /**
+     * Samples the trajectory at the given time without allocating.
+     *
+     * @param time The time since the start of the trajectory in seconds
+     * @param sample The sample to write the wanted state of the robot into
+     * @return The given sample
+     */
+    public Sample sample(double time, Sample sample) {
+        int size = this.times.length;
+        if (time <= this.times[0]) {
+            return sample.set(time, this.ts[0], this.xs[0], this.ys[0], this.velocities[0], this.angles[0]);
+        } else if (time >= this.times[size - 1]) {
+            return sample.set(time, this.ts[size - 1], this.xs[size - 1], this.ys[size - 1],
+                    this.velocities[size - 1], this.angles[size - 1]);
+        }
+
+        int low = 0;
+        int high = size - 1;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (this.times[middle] <= time)
+                low = middle;
+            else
+                high = middle;
+        }
+
+        double ratio = (time - this.times[low]) / (this.times[high] - this.times[low]);
+        return sample.set(time,
+                interpolate(this.ts, low, ratio),
+                interpolate(this.xs, low, ratio),
+                interpolate(this.ys, low, ratio),
+                interpolate(this.velocities, low, ratio),
+                this.angles[low] + (MathUtil.angleModulus(this.angles[high] - this.angles[low]) * ratio));
+    }
+
+    private static double interpolate(double[] values, int index, double ratio) {
+        return values[index] + ((values[index + 1] - values[index]) * ratio);
+    }
+
+    public double getTotalTime() {
+        return this.times[this.times.length - 1];
+    }
+
+    public int getSampleCount() {
+        return this.times.length;
+    }
+
+    /**
+     * A mutable state of the trajectory at a point in time, reused between samples so following the
+     * trajectory doesn't allocate.
+     */
+    public static class Sample {
+        public double time;
+        public double t;
+        public double x;
+        public double y;
+        public double velocity;
+        public double angle;
+
+        public double getVelocityX() {
+            return this.velocity * Math.cos(this.angle);
+        }
+
+        public double getVelocityY() {
+            return this.velocity * Math.sin(this.angle);
+        }
+
+        private Sample set(double time, double t, double x, double y, double velocity, double angle) {
+            this.time = time;
+            this.t = t;
+            this.x = x;
+            this.y = y;
+            this.velocity = velocity;
+            this.angle = angle;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "time= " + this.time + ", t= " + this.t + ", x= " + this.x + ", y= " + this.y
+                    + ", vel= " + this.velocity + ", angle= " + this.angle;
+        }
+    }
+}
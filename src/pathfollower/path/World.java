@@ -0,0 +1,217 @@
+package pathfollower.path;
+
+import pathfollower.util.Clock;
+import pathfollower.util.Entry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulates many robots, each driven by its own tracker, on a shared simulated clock. Every tick all the
+ * trackers update and all the robots are stepped by the period before the clock moves on, and the robots
+ * are split between threads that wait for each other at the end of every tick.
+ */
+public class World implements Clock, AutoCloseable {
+    private final double period;
+    private final int threads;
+
+    private final List<Entry<Robot, PathTracker>> entries = new ArrayList<>();
+    private Robot[] robots = new Robot[0];
+    private PathTracker[] trackers = new PathTracker[0];
+
+    private ExecutorService executor;
+    private CollisionDetector collisionDetector;
+
+    private volatile double time = 0;
+    private long ticks = 0;
+
+    /**
+     * Constructs a world that uses all the available processors.
+     *
+     * @param period The simulated time of one tick in seconds
+     */
+    public World(double period) {
+        this(period, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a world.
+     *
+     * @param period The simulated time of one tick in seconds
+     * @param threads The amount of threads the robots are split between
+     */
+    public World(double period, int threads) {
+        if (period <= 0)
+            throw new IllegalArgumentException("World period must be a non-zero positive number!");
+        if (threads < 1)
+            throw new IllegalArgumentException("World must have at least one thread!");
+        this.period = period;
+        this.threads = threads;
+    }
+
+    /**
+     * Adds a robot to the world. The robot is stepped by the world from now on, and the tracker is timed by
+     * the world's clock.
+     *
+     * @param robot The robot
+     * @param tracker The tracker that drives the robot
+     */
+    public void add(Robot robot, PathTracker tracker) {
+        robot.setSteppedByDrive(false);
+        robot.setClock(this);
+        tracker.setClock(this);
+
+        this.entries.add(new Entry<>(robot, tracker));
+        this.robots = this.entries.stream().map(Entry::a).toArray(Robot[]::new);
+        this.trackers = this.entries.stream().map(Entry::b).toArray(PathTracker[]::new);
+    }
+
+    /** Starts every tracker at the current time. */
+    public void start() {
+        for (PathTracker tracker : this.trackers) {
+            tracker.start();
+        }
+    }
+
+    /** Simulates one tick. */
+    public void step() {
+        this.run(1);
+    }
+
+    /**
+     * Simulates the given amount of ticks.
+     *
+     * @param ticks The amount of ticks
+     */
+    public void run(int ticks) {
+        int chunks = Math.min(this.threads, this.robots.length);
+        if (chunks <= 1) {
+            for (int i = 0; i < ticks; i++) {
+                this.update(0, this.robots.length);
+                this.tick();
+            }
+            return;
+        }
+
+        if (this.executor == null) {
+            this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+                Thread thread = new Thread(runnable, "World");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        // The clock only moves once every chunk finished the tick, and before any of them starts the next one
+        CyclicBarrier barrier = new CyclicBarrier(chunks, this::tick);
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = (int) ((long) this.robots.length * i / chunks);
+            int to = (int) ((long) this.robots.length * (i + 1) / chunks);
+            tasks.add(() -> {
+                try {
+                    for (int j = 0; j < ticks; j++) {
+                        this.update(from, to);
+                        barrier.await();
+                    }
+                } catch (RuntimeException | Error e) {
+                    // Releases the other chunks instead of leaving them waiting for this one
+                    barrier.reset();
+                    throw e;
+                }
+                return null;
+            });
+        }
+
+        List<Future<Void>> futures;
+        try {
+            futures = this.executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        // The chunks that were released by a failing chunk only report the broken barrier
+        RuntimeException failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (failure == null && !(e.getCause() instanceof BrokenBarrierException))
+                    failure = new RuntimeException(e.getCause());
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    private void update(int from, int to) {
+        for (int i = from; i < to; i++) {
+            this.trackers[i].update();
+            this.robots[i].advance(this.period);
+        }
+    }
+
+    private void tick() {
+        this.ticks++;
+        this.time = this.ticks * this.period;
+
+        if (this.collisionDetector != null)
+            this.collisionDetector.update(this.robots);
+    }
+
+    @Override
+    public double getTime() {
+        return time;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public double getPeriod() {
+        return period;
+    }
+
+    public int size() {
+        return this.robots.length;
+    }
+
+    public Robot getRobot(int index) {
+        return this.robots[index];
+    }
+
+    public PathTracker getTracker(int index) {
+        return this.trackers[index];
+    }
+
+    public CollisionDetector getCollisionDetector() {
+        return collisionDetector;
+    }
+
+    /**
+     * Sets the collision detector that finds the contacts between the robots at the end of every tick.
+     *
+     * @param collisionDetector The collision detector, or null to not detect collisions
+     */
+    public void setCollisionDetector(CollisionDetector collisionDetector) {
+        this.collisionDetector = collisionDetector;
+    }
+
+    @Override
+    public void close() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+}
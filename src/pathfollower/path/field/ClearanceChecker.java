@@ -0,0 +1,194 @@
+package pathfollower.path.field;
+
+import pathfollower.math.MathUtil;
+import pathfollower.path.ArcLengthTable;
+import pathfollower.path.Path;
+
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * Checks whether the square bumper of the robot stays inside the field and clear of the obstacles along a
+ * whole path. The bumper is swept along the path and rasterized into the cells of the obstacle map, one row
+ * of cells at a time, and every row is tested against the blocked cells of the same row.
+ */
+public class ClearanceChecker {
+    // The amount of path samples one task sweeps, so the chunks of a path are swept in parallel
+    private static final int CHUNK_SIZE = 64;
+
+    private final ObstacleMap map;
+    private final double halfWidth;
+
+    /**
+     * Constructs a clearance checker.
+     *
+     * @param map The map of the field
+     * @param width The width of the robot with its bumpers in meters
+     */
+    public ClearanceChecker(ObstacleMap map, double width) {
+        if (width <= 0)
+            throw new IllegalArgumentException("Robot width must be a non-zero positive number!");
+        this.map = map;
+        this.halfWidth = width / 2;
+    }
+
+    /**
+     * Sweeps the bumper along the path. The heading of the robot turns from the start heading to the end
+     * heading the short way, evenly along the distance of the path.
+     *
+     * @param path The path
+     * @param startHeading The heading of the robot at the start of the path in degrees
+     * @param endHeading The heading of the robot at the end of the path in degrees
+     * @return The cells the bumper sweeps and the first pose where it hits something
+     */
+    public Result check(Path path, double startHeading, double endHeading) {
+        ArcLengthTable table = new ArcLengthTable(path);
+        // Half a cell between the samples so the bumper doesn't skip over a cell between two of them
+        double spacing = this.map.getResolution() / 2;
+        int samples = (int) Math.ceil(table.getLength() / spacing) + 1;
+        double turn = MathUtil.inputModulus(endHeading - startHeading, -180, 180);
+
+        int chunks = (samples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Sweep[] sweeps = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> this.sweep(table, startHeading, turn, samples, chunk * CHUNK_SIZE,
+                        Math.min(samples, (chunk + 1) * CHUNK_SIZE)))
+                .toArray(Sweep[]::new);
+
+        BitSet swept = sweeps[0].swept;
+        int collision = sweeps[0].collision;
+        for (int i = 1; i < sweeps.length; i++) {
+            swept.or(sweeps[i].swept);
+            if (collision < 0)
+                collision = sweeps[i].collision;
+        }
+
+        if (collision < 0)
+            return new Result(swept, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        double distance = getDistance(table, samples, collision);
+        return new Result(swept, table.getT(distance), table.getX(distance), table.getY(distance),
+                getHeading(table, startHeading, turn, distance));
+    }
+
+    private Sweep sweep(ArcLengthTable table, double startHeading, double turn, int samples, int from, int to) {
+        Sweep sweep = new Sweep(new BitSet(this.map.getColumns() * this.map.getRows()));
+        double[] xs = new double[4];
+        double[] ys = new double[4];
+        for (int i = from; i < to; i++) {
+            double distance = getDistance(table, samples, i);
+            double heading = Math.toRadians(getHeading(table, startHeading, turn, distance));
+            double x = table.getX(distance);
+            double y = table.getY(distance);
+
+            // The corners are at 45 degrees from the heading, like the bumper is drawn
+            double radius = Math.sqrt(2) * this.halfWidth;
+            for (int corner = 0; corner < 4; corner++) {
+                double angle = heading + Math.toRadians(45 + (90 * corner));
+                xs[corner] = x + (radius * Math.cos(angle));
+                ys[corner] = y + (radius * Math.sin(angle));
+            }
+
+            if (this.rasterize(xs, ys, sweep.swept) && sweep.collision < 0)
+                sweep.collision = i;
+        }
+        return sweep;
+    }
+
+    /**
+     * Sets the cells of a convex polygon in the swept cells.
+     *
+     * @return Whether the polygon touches a blocked cell or leaves the map
+     */
+    private boolean rasterize(double[] xs, double[] ys, BitSet swept) {
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (double y : ys) {
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        BitSet blocked = this.map.getCells();
+        boolean hit = false;
+        int fromRow = this.map.getRow(minY);
+        int toRow = this.map.getRow(maxY);
+        for (int row = fromRow; row <= toRow; row++) {
+            double bottom = this.map.getMinY() + (row * this.map.getResolution());
+            double top = bottom + this.map.getResolution();
+
+            // The part of the polygon inside the row is between the ends of its edges clipped to the row
+            double minX = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < xs.length; i++) {
+                int j = (i + 1) % xs.length;
+                double x1 = xs[i];
+                double y1 = ys[i];
+                double x2 = xs[j];
+                double y2 = ys[j];
+                if (Math.max(y1, y2) < bottom || Math.min(y1, y2) > top)
+                    continue;
+
+                double dy = y2 - y1;
+                if (Math.abs(dy) < 1e-12) {
+                    minX = Math.min(minX, Math.min(x1, x2));
+                    maxX = Math.max(maxX, Math.max(x1, x2));
+                    continue;
+                }
+                double xAtBottom = x1 + ((x2 - x1) * ((MathUtil.clamp(bottom, Math.min(y1, y2), Math.max(y1, y2)) - y1) / dy));
+                double xAtTop = x1 + ((x2 - x1) * ((MathUtil.clamp(top, Math.min(y1, y2), Math.max(y1, y2)) - y1) / dy));
+                minX = Math.min(minX, Math.min(xAtBottom, xAtTop));
+                maxX = Math.max(maxX, Math.max(xAtBottom, xAtTop));
+            }
+            if (minX > maxX)
+                continue;
+
+            int fromColumn = this.map.getColumn(minX);
+            int toColumn = this.map.getColumn(maxX);
+            if (row < 0 || row >= this.map.getRows() || fromColumn < 0 || toColumn >= this.map.getColumns())
+                hit = true;
+            if (row < 0 || row >= this.map.getRows())
+                continue;
+            fromColumn = Math.max(0, fromColumn);
+            toColumn = Math.min(this.map.getColumns() - 1, toColumn);
+            if (fromColumn > toColumn)
+                continue;
+
+            int fromIndex = this.map.getIndex(fromColumn, row);
+            int toIndex = this.map.getIndex(toColumn, row) + 1;
+            swept.set(fromIndex, toIndex);
+            int blockedIndex = blocked.nextSetBit(fromIndex);
+            if (blockedIndex >= 0 && blockedIndex < toIndex)
+                hit = true;
+        }
+        return hit;
+    }
+
+    private static double getDistance(ArcLengthTable table, int samples, int sample) {
+        return samples > 1 ? table.getLength() * sample / (samples - 1) : 0;
+    }
+
+    private static double getHeading(ArcLengthTable table, double startHeading, double turn, double distance) {
+        double ratio = table.getLength() > 0 ? distance / table.getLength() : 1;
+        return startHeading + (turn * ratio);
+    }
+
+    private static class Sweep {
+        private final BitSet swept;
+        private int collision = -1;
+
+        private Sweep(BitSet swept) {
+            this.swept = swept;
+        }
+    }
+
+    /**
+     * @param swept The cells of the map the bumper covers along the path, in the order of {@link ObstacleMap#getIndex}
+     * @param collisionT The t of the first sample where the bumper hits something, NaN if the path is clear
+     * @param collisionX The x of the robot at the first hit
+     * @param collisionY The y of the robot at the first hit
+     * @param collisionHeading The heading of the robot at the first hit in degrees
+     */
+    public record Result(BitSet swept, double collisionT, double collisionX, double collisionY, double collisionHeading) {
+        public boolean isClear() {
+            return Double.isNaN(this.collisionT);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package pathfollower.path.field;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * The distance from every cell of an obstacle map to the closest blocked cell or field wall. The distances
+ * are computed once with the linear time Euclidean distance transform of Felzenszwalb and Huttenlocher, one
+ * pass down the columns and one along the rows, so a query is only an interpolation between four cells.
+ */
+public class DistanceField {
+    private static final int MAGIC = 0x45445446;
+    private static final double INFINITY = 1e20;
+
+    private final ObstacleMap map;
+    private final int columns;
+    private final int rows;
+    private final float[] distances;
+
+    /**
+     * Computes the distance field of a map.
+     *
+     * @param map The map
+     */
+    public DistanceField(ObstacleMap map) {
+        this(map, compute(map));
+    }
+
+    private DistanceField(ObstacleMap map, float[] distances) {
+        this.map = map;
+        this.columns = map.getColumns();
+        this.rows = map.getRows();
+        this.distances = distances;
+    }
+
+    /**
+     * Loads the distance field of a map from the cache directory, or computes it and saves it there if it isn't
+     * cached yet. The cache file is named by the hash of the map, and holds the map itself so a hash collision
+     * is computed again instead of loading the wrong field.
+     *
+     * @param map The map
+     * @param directory The cache directory
+     * @return The distance field of the map
+     */
+    public static DistanceField load(ObstacleMap map, File directory) {
+        File file = new File(directory, "distance-field-" + Integer.toHexString(map.hashCode()) + ".bin");
+        if (file.isFile()) {
+            try {
+                DistanceField field = read(map, file);
+                if (field != null)
+                    return field;
+            } catch (IOException ignored) {
+                // A broken cache file is computed and written again
+            }
+        }
+
+        DistanceField field = new DistanceField(map);
+        try {
+            if (directory.isDirectory() || directory.mkdirs())
+                field.write(file);
+        } catch (IOException ignored) {
+            // The field can still be used without the cache
+        }
+        return field;
+    }
+
+    private static DistanceField read(ObstacleMap map, File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC
+                    || input.readDouble() != map.getMinX() || input.readDouble() != map.getMinY()
+                    || input.readDouble() != map.getResolution()
+                    || input.readInt() != map.getColumns() || input.readInt() != map.getRows())
+                return null;
+
+            long[] words = new long[input.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            if (!BitSet.valueOf(words).equals(map.getCells()))
+                return null;
+
+            float[] distances = new float[map.getColumns() * map.getRows()];
+            byte[] bytes = new byte[distances.length * Float.BYTES];
+            input.readFully(bytes);
+            ByteBuffer.wrap(bytes).asFloatBuffer().get(distances);
+            return new DistanceField(map, distances);
+        }
+    }
+
+    private void write(File file) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeDouble(this.map.getMinX());
+            output.writeDouble(this.map.getMinY());
+            output.writeDouble(this.map.getResolution());
+            output.writeInt(this.columns);
+            output.writeInt(this.rows);
+
+            long[] words = this.map.getCells().toLongArray();
+            output.writeInt(words.length);
+            for (long word : words) {
+                output.writeLong(word);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(this.distances.length * Float.BYTES);
+            buffer.asFloatBuffer().put(this.distances);
+            output.write(buffer.array());
+        }
+    }
+
+    private static float[] compute(ObstacleMap map) {
+        // The grid has a blocked border so the distance to the field walls is part of the transform
+        int columns = map.getColumns() + 2;
+        int rows = map.getRows() + 2;
+        double[] grid = new double[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                grid[(row * columns) + column] = map.isOccupied(column - 1, row - 1) ? 0 : INFINITY;
+            }
+        }
+
+        int length = Math.max(columns, rows);
+        double[] values = new double[length];
+        double[] output = new double[length];
+        int[] parabolas = new int[length];
+        double[] boundaries = new double[length + 1];
+
+        for (int column = 0; column < columns; column++) {
+            for (int row = 0; row < rows; row++) {
+                values[row] = grid[(row * columns) + column];
+            }
+            transform(values, rows, output, parabolas, boundaries);
+            for (int row = 0; row < rows; row++) {
+                grid[(row * columns) + column] = output[row];
+            }
+        }
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(grid, row * columns, values, 0, columns);
+            transform(values, columns, output, parabolas, boundaries);
+            System.arraycopy(output, 0, grid, row * columns, columns);
+        }
+
+        float[] distances = new float[map.getColumns() * map.getRows()];
+        for (int row = 0; row < map.getRows(); row++) {
+            for (int column = 0; column < map.getColumns(); column++) {
+                distances[map.getIndex(column, row)] =
+                        (float) (Math.sqrt(grid[((row + 1) * columns) + column + 1]) * map.getResolution());
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * The one dimensional squared distance transform, the lower envelope of the parabolas rooted at every cell.
+     *
+     * @param values The squared distances before this pass
+     * @param length The amount of cells
+     * @param output The squared distances after this pass
+     * @param parabolas The cells of the parabolas in the envelope
+     * @param boundaries Where every parabola of the envelope starts
+     */
+    private static void transform(double[] values, int length, double[] output, int[] parabolas, double[] boundaries) {
+        int count = 0;
+        parabolas[0] = 0;
+        boundaries[0] = Double.NEGATIVE_INFINITY;
+        boundaries[1] = Double.POSITIVE_INFINITY;
+        for (int q = 1; q < length; q++) {
+            double intersection = intersect(values, parabolas[count], q);
+            // The new parabola hides the parabolas it intersects before they start
+            while (intersection <= boundaries[count]) {
+                count--;
+                intersection = intersect(values, parabolas[count], q);
+            }
+            count++;
+            parabolas[count] = q;
+            boundaries[count] = intersection;
+            boundaries[count + 1] = Double.POSITIVE_INFINITY;
+        }
+
+        int parabola = 0;
+        for (int q = 0; q < length; q++) {
+            while (boundaries[parabola + 1] < q) {
+                parabola++;
+            }
+            int p = parabolas[parabola];
+            output[q] = ((double) (q - p) * (q - p)) + values[p];
+        }
+    }
+
+    private static double intersect(double[] values, int p, int q) {
+        return ((values[q] + ((double) q * q)) - (values[p] + ((double) p * p))) / (2.0 * (q - p));
+    }
+
+    /**
+     * Returns the distance from a point to the closest obstacle, interpolated between the centers of the four
+     * cells around the point.
+     *
+     * @param x The x of the point
+     * @param y The y of the point
+     * @return The distance in meters, zero outside the field
+     */
+    public double getDistance(double x, double y) {
+        double u = ((x - this.map.getMinX()) / this.map.getResolution()) - 0.5;
+        double v = ((y - this.map.getMinY()) / this.map.getResolution()) - 0.5;
+        if (u < -0.5 || v < -0.5 || u > this.columns - 0.5 || v > this.rows - 0.5)
+            return 0;
+
+        int column = clampCell(u, this.columns);
+        int row = clampCell(v, this.rows);
+        double ratioX = Math.max(0, Math.min(1, u - column));
+        double ratioY = Math.max(0, Math.min(1, v - row));
+
+        double bottom = this.get(column, row) + ((this.get(column + 1, row) - this.get(column, row)) * ratioX);
+        double top = this.get(column, row + 1) + ((this.get(column + 1, row + 1) - this.get(column, row + 1)) * ratioX);
+        return bottom + ((top - bottom) * ratioY);
+    }
+
+    /**
+     * Returns the x of the gradient of the distance, the direction away from the closest obstacle.
+     *
+     * @param x The x of the point
+     * @param y The y of the point
+     * @return The change of the distance for every meter in x
+     */
+    public double getGradientX(double x, double y) {
+        double u = ((x - this.map.getMinX()) / this.map.getResolution()) - 0.5;
+        double v = ((y - this.map.getMinY()) / this.map.getResolution()) - 0.5;
+        int column = clampCell(u, this.columns);
+        int row = clampCell(v, this.rows);
+        double ratioY = Math.max(0, Math.min(1, v - row));
+
+        double bottom = this.get(column + 1, row) - this.get(column, row);
+        double top = this.get(column + 1, row + 1) - this.get(column, row + 1);
+        return (bottom + ((top - bottom) * ratioY)) / this.map.getResolution();
+    }
+
+    /**
+     * Returns the y of the gradient of the distance, the direction away from the closest obstacle.
+     *
+     * @param x The x of the point
+     * @param y The y of the point
+     * @return The change of the distance for every meter in y
+     */
+    public double getGradientY(double x, double y) {
+        double u = ((x - this.map.getMinX()) / this.map.getResolution()) - 0.5;
+        double v = ((y - this.map.getMinY()) / this.map.getResolution()) - 0.5;
+        int column = clampCell(u, this.columns);
+        int row = clampCell(v, this.rows);
+        double ratioX = Math.max(0, Math.min(1, u - column));
+
+        double left = this.get(column, row + 1) - this.get(column, row);
+        double right = this.get(column + 1, row + 1) - this.get(column + 1, row);
+        return (left + ((right - left) * ratioX)) / this.map.getResolution();
+    }
+
+    /**
+     * Returns the first of the two cells to interpolate between, so the second one is still in the grid.
+     */
+    private static int clampCell(double position, int size) {
+        return Math.max(0, Math.min(size - 2, (int) Math.floor(position)));
+    }
+
+    private double get(int column, int row) {
+        return this.distances[(Math.min(row, this.rows - 1) * this.columns) + Math.min(column, this.columns - 1)];
+    }
+
+    /**
+     * Returns the distance at the center of a cell.
+     *
+     * @param column The column of the cell
+     * @param row The row of the cell
+     * @return The distance in meters
+     */
+    public double getCellDistance(int column, int row) {
+        return this.distances[this.map.getIndex(column, row)];
+    }
+
+    public ObstacleMap getMap() {
+        return map;
+    }
+}
@@ -0,0 +1,346 @@
+package pathfollower.path.field;
+
+import pathfollower.math.MathUtil;
+import pathfollower.path.util.Waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans a route around the obstacles of the field with Theta*, an A* whose nodes can connect to any node they
+ * see instead of only to their neighbours, so the route is made of straight lines at any angle. The search
+ * runs on a packed bitset of the cells the robot can't be in, with a binary heap of cell indices as the open
+ * set, and every array is kept between plans so planning doesn't allocate until the route is built.
+ */
+public class GridPlanner {
+    private static final int[] NEIGHBOUR_COLUMNS = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] NEIGHBOUR_ROWS = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final double HEURISTIC_WEIGHT = 1.001;
+
+    private final ObstacleMap map;
+    private final int columns;
+    private final int rows;
+
+    // A cell is blocked if the robot centered on it would be closer to an obstacle than the clearance
+    private final long[] blocked;
+
+    private final double[] costs;
+    private final int[] parents;
+    private final int[] searches;
+    private final long[] closed;
+    private final int[] heap;
+    private final int[] heapIndices;
+    private final double[] priorities;
+    private int heapSize = 0;
+    private int search = 0;
+
+    /**
+     * Constructs a planner.
+     *
+     * @param field The distance field of the map to plan in
+     * @param clearance The closest the center of the robot can get to an obstacle in meters, at least half the
+     *                  diagonal of the bumper so the robot can turn anywhere on the route
+     */
+    public GridPlanner(DistanceField field, double clearance) {
+        this.map = field.getMap();
+        this.columns = this.map.getColumns();
+        this.rows = this.map.getRows();
+
+        int size = this.columns * this.rows;
+        this.blocked = new long[(size + 63) >>> 6];
+        for (int row = 0; row < this.rows; row++) {
+            for (int column = 0; column < this.columns; column++) {
+                if (field.getCellDistance(column, row) < clearance)
+                    set(this.blocked, this.map.getIndex(column, row));
+            }
+        }
+
+        this.costs = new double[size];
+        this.parents = new int[size];
+        this.searches = new int[size];
+        this.closed = new long[this.blocked.length];
+        this.heap = new int[size];
+        this.heapIndices = new int[size];
+        this.priorities = new double[size];
+    }
+
+    /**
+     * Plans a route between two poses. The heading of the waypoints turns from the start heading to the end
+     * heading along the distance of the route, and their movement angle points along the route. The waypoints are
+     * the corners of the route, which a {@link pathfollower.path.path.BezierCurve} only uses as control points
+     * and cuts, so the curve should still be checked with a {@link ClearanceChecker}.
+     *
+     * @param startX The x of the start
+     * @param startY The y of the start
+     * @param startHeading The heading at the start in degrees
+     * @param endX The x of the end
+     * @param endY The y of the end
+     * @param endHeading The heading at the end in degrees
+     * @return The waypoints of the route from the start to the end, empty if there is no route
+     */
+    public List<Waypoint> plan(double startX, double startY, double startHeading, double endX, double endY, double endHeading) {
+        int startColumn = this.map.getColumn(startX);
+        int startRow = this.map.getRow(startY);
+        int endColumn = this.map.getColumn(endX);
+        int endRow = this.map.getRow(endY);
+        if (!this.map.contains(startColumn, startRow) || !this.map.contains(endColumn, endRow))
+            return new ArrayList<>();
+
+        int start = this.map.getIndex(startColumn, startRow);
+        int end = this.map.getIndex(endColumn, endRow);
+        // The robot can start too close to an obstacle and drive away from it, but never end there
+        if (get(this.blocked, end) || !this.search(start, end))
+            return new ArrayList<>();
+
+        int count = 0;
+        for (int cell = end; cell != start; cell = this.parents[cell]) {
+            count++;
+        }
+        int[] cells = new int[count + 1];
+        for (int cell = end, i = count; i >= 0; cell = this.parents[cell], i--) {
+            cells[i] = cell;
+        }
+
+        // Skips every corner the route can go straight past
+        int[] route = new int[cells.length];
+        int length = 0;
+        route[length++] = cells[0];
+        for (int i = 0; i < cells.length - 1; ) {
+            int farthest = i + 1;
+            for (int j = cells.length - 1; j > i + 1; j--) {
+                if (this.isVisible(cells[i], cells[j])) {
+                    farthest = j;
+                    break;
+                }
+            }
+            route[length++] = cells[farthest];
+            i = farthest;
+        }
+
+        double[] xs = new double[length];
+        double[] ys = new double[length];
+        for (int i = 0; i < length; i++) {
+            xs[i] = this.map.getCellX(route[i] % this.columns);
+            ys[i] = this.map.getCellY(route[i] / this.columns);
+        }
+        xs[0] = startX;
+        ys[0] = startY;
+        xs[length - 1] = endX;
+        ys[length - 1] = endY;
+        if (length == 1) {
+            xs = new double[]{startX, endX};
+            ys = new double[]{startY, endY};
+            length = 2;
+        }
+
+        double total = 0;
+        for (int i = 1; i < length; i++) {
+            total += Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+        }
+        double turn = MathUtil.inputModulus(endHeading - startHeading, -180, 180);
+
+        List<Waypoint> waypoints = new ArrayList<>(length);
+        double distance = 0;
+        for (int i = 0; i < length; i++) {
+            if (i > 0)
+                distance += Math.hypot(xs[i] - xs[i - 1], ys[i] - ys[i - 1]);
+            int from = Math.min(i, length - 2);
+            double movementAngle = Math.toDegrees(Math.atan2(ys[from + 1] - ys[from], xs[from + 1] - xs[from]));
+            double heading = startHeading + (turn * (total > 0 ? distance / total : 1));
+            waypoints.add(new Waypoint(xs[i], ys[i], heading, movementAngle));
+        }
+        return waypoints;
+    }
+
+    private boolean search(int start, int end) {
+        this.search++;
+        this.heapSize = 0;
+        int endColumn = end % this.columns;
+        int endRow = end / this.columns;
+
+        this.visit(start, 0, start, endColumn, endRow);
+        while (this.heapSize > 0) {
+            int cell = this.pop();
+            set(this.closed, cell);
+            int column = cell % this.columns;
+            int row = cell / this.columns;
+
+            // Lazy Theta*, cells are connected to the parent of the cell that found them without checking if they
+            // see it, and only checked once they are expanded. The ones that don't see it take the best neighbour
+            int parent = this.parents[cell];
+            if (parent != cell && !this.isVisible(parent, cell)) {
+                this.costs[cell] = Double.POSITIVE_INFINITY;
+                for (int i = 0; i < NEIGHBOUR_COLUMNS.length; i++) {
+                    int neighbour = this.getNeighbour(column, row, i);
+                    if (neighbour >= 0 && this.searches[neighbour] == this.search && get(this.closed, neighbour)) {
+                        double cost = this.costs[neighbour] + this.getDistance(neighbour, cell);
+                        if (cost < this.costs[cell]) {
+                            this.costs[cell] = cost;
+                            this.parents[cell] = neighbour;
+                        }
+                    }
+                }
+                parent = this.parents[cell];
+            }
+            if (cell == end)
+                return true;
+
+            for (int i = 0; i < NEIGHBOUR_COLUMNS.length; i++) {
+                int neighbour = this.getNeighbour(column, row, i);
+                if (neighbour < 0 || (this.searches[neighbour] == this.search && get(this.closed, neighbour)))
+                    continue;
+                this.visit(neighbour, this.costs[parent] + this.getDistance(parent, neighbour), parent, endColumn, endRow);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a free neighbour of a cell, or -1 if it is blocked or outside the map. Diagonal neighbours can't be
+     * reached between two blocked cells.
+     */
+    private int getNeighbour(int column, int row, int direction) {
+        int neighbourColumn = column + NEIGHBOUR_COLUMNS[direction];
+        int neighbourRow = row + NEIGHBOUR_ROWS[direction];
+        if (!this.map.contains(neighbourColumn, neighbourRow))
+            return -1;
+        int neighbour = this.map.getIndex(neighbourColumn, neighbourRow);
+        if (get(this.blocked, neighbour))
+            return -1;
+        if (neighbourColumn != column && neighbourRow != row
+                && (get(this.blocked, this.map.getIndex(neighbourColumn, row)) || get(this.blocked, this.map.getIndex(column, neighbourRow))))
+            return -1;
+        return neighbour;
+    }
+
+    private void visit(int cell, double cost, int parent, int endColumn, int endRow) {
+        if (this.searches[cell] != this.search) {
+            this.searches[cell] = this.search;
+            clear(this.closed, cell);
+            this.costs[cell] = Double.POSITIVE_INFINITY;
+            this.heapIndices[cell] = -1;
+        }
+        if (cost >= this.costs[cell])
+            return;
+
+        this.costs[cell] = cost;
+        this.parents[cell] = parent;
+        // Slightly overestimating the distance left breaks the ties between equal routes towards the end
+        double priority = cost + (HEURISTIC_WEIGHT * length((cell % this.columns) - endColumn, (cell / this.columns) - endRow));
+        if (this.heapIndices[cell] < 0) {
+            this.heap[this.heapSize] = cell;
+            this.heapIndices[cell] = this.heapSize;
+            this.heapSize++;
+        }
+        this.priorities[cell] = priority;
+        this.siftUp(this.heapIndices[cell]);
+    }
+
+    private int pop() {
+        int cell = this.heap[0];
+        this.heapIndices[cell] = -1;
+        this.heapSize--;
+        if (this.heapSize > 0) {
+            this.heap[0] = this.heap[this.heapSize];
+            this.heapIndices[this.heap[0]] = 0;
+            this.siftDown(0);
+        }
+        return cell;
+    }
+
+    private void siftUp(int index) {
+        int cell = this.heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (this.priorities[this.heap[parent]] <= this.priorities[cell])
+                break;
+            this.heap[index] = this.heap[parent];
+            this.heapIndices[this.heap[index]] = index;
+            index = parent;
+        }
+        this.heap[index] = cell;
+        this.heapIndices[cell] = index;
+    }
+
+    private void siftDown(int index) {
+        int cell = this.heap[index];
+        while (true) {
+            int child = (2 * index) + 1;
+            if (child >= this.heapSize)
+                break;
+            if (child + 1 < this.heapSize && this.priorities[this.heap[child + 1]] < this.priorities[this.heap[child]])
+                child++;
+            if (this.priorities[cell] <= this.priorities[this.heap[child]])
+                break;
+            this.heap[index] = this.heap[child];
+            this.heapIndices[this.heap[index]] = index;
+            index = child;
+        }
+        this.heap[index] = cell;
+        this.heapIndices[cell] = index;
+    }
+
+    /**
+     * Checks whether the straight line between the centers of two cells only passes through free cells. Every
+     * cell the line touches is checked, including both cells where it passes exactly through a corner.
+     */
+    private boolean isVisible(int from, int to) {
+        int dx = Math.abs((to % this.columns) - (from % this.columns));
+        int dy = Math.abs((to / this.columns) - (from / this.columns));
+        // The line is walked by the index of the cell, so a step in x moves it by one and a step in y by a row
+        int stepX = (to % this.columns) > (from % this.columns) ? 1 : -1;
+        int stepY = (to / this.columns) > (from / this.columns) ? this.columns : -this.columns;
+        // The error is how far the line is from the crossing of the next column and the next row, times 2 * dx * dy
+        int error = dx - dy;
+        dx *= 2;
+        dy *= 2;
+        int cell = from;
+        for (int i = (dx + dy) / 2; i > 0; i--) {
+            if (error > 0) {
+                cell += stepX;
+                error -= dy;
+            } else if (error < 0) {
+                cell += stepY;
+                error += dx;
+            } else {
+                if (get(this.blocked, cell + stepX) || get(this.blocked, cell + stepY))
+                    return false;
+                cell += stepX + stepY;
+                error += dx - dy;
+                i--;
+            }
+            if (get(this.blocked, cell))
+                return false;
+        }
+        return true;
+    }
+
+    private double getDistance(int from, int to) {
+        return length((from % this.columns) - (to % this.columns), (from / this.columns) - (to / this.columns));
+    }
+
+    // Math.hypot guards against overflow the cell counts can't reach, and is much slower than the square root
+    private static double length(int x, int y) {
+        return Math.sqrt((double) (x * x) + (y * y));
+    }
+
+    public boolean isBlocked(int column, int row) {
+        return !this.map.contains(column, row) || get(this.blocked, this.map.getIndex(column, row));
+    }
+
+    public ObstacleMap getMap() {
+        return map;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
@@ -0,0 +1,200 @@
+package pathfollower.path.field;
+
+import pathfollower.math.geometry.Translation2d;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * An occupancy grid of the field. Every cell is one bit that is set if the cell is blocked, and the cells are
+ * stored row after row so a horizontal run of cells is a run of bits. Everything outside the grid is treated
+ * as blocked, since it is outside the field walls.
+ */
+public class ObstacleMap {
+    private final double minX;
+    private final double minY;
+    private final double resolution;
+    private final int columns;
+    private final int rows;
+
+    private final BitSet cells;
+
+    /**
+     * Constructs an empty map of a rectangular field.
+     *
+     * @param minX The x of the bottom left corner of the field in meters
+     * @param minY The y of the bottom left corner of the field in meters
+     * @param maxX The x of the top right corner of the field in meters
+     * @param maxY The y of the top right corner of the field in meters
+     * @param resolution The width of one cell in meters
+     */
+    public ObstacleMap(double minX, double minY, double maxX, double maxY, double resolution) {
+        if (resolution <= 0)
+            throw new IllegalArgumentException("Map resolution must be a non-zero positive number!");
+        if (maxX <= minX || maxY <= minY)
+            throw new IllegalArgumentException("Map must have a non-zero positive size!");
+        this.minX = minX;
+        this.minY = minY;
+        this.resolution = resolution;
+        this.columns = (int) Math.ceil((maxX - minX) / resolution);
+        this.rows = (int) Math.ceil((maxY - minY) / resolution);
+        this.cells = new BitSet(this.columns * this.rows);
+    }
+
+    /**
+     * Blocks every cell that touches the given rectangle.
+     *
+     * @param x1 The x of one corner of the rectangle
+     * @param y1 The y of one corner of the rectangle
+     * @param x2 The x of the opposite corner of the rectangle
+     * @param y2 The y of the opposite corner of the rectangle
+     */
+    public void addRectangle(double x1, double y1, double x2, double y2) {
+        int fromColumn = Math.max(0, this.getColumn(Math.min(x1, x2)));
+        int toColumn = Math.min(this.columns - 1, this.getColumn(Math.max(x1, x2)));
+        int fromRow = Math.max(0, this.getRow(Math.min(y1, y2)));
+        int toRow = Math.min(this.rows - 1, this.getRow(Math.max(y1, y2)));
+        if (fromColumn > toColumn)
+            return;
+
+        for (int row = fromRow; row <= toRow; row++) {
+            this.cells.set(this.getIndex(fromColumn, row), this.getIndex(toColumn, row) + 1);
+        }
+    }
+
+    /**
+     * Blocks every cell whose center is inside the given polygon, which can also be concave.
+     *
+     * @param corners The corners of the polygon in order
+     */
+    public void addPolygon(Translation2d... corners) {
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (Translation2d corner : corners) {
+            minY = Math.min(minY, corner.getY());
+            maxY = Math.max(maxY, corner.getY());
+        }
+
+        double[] crossings = new double[corners.length];
+        int fromRow = Math.max(0, this.getRow(minY));
+        int toRow = Math.min(this.rows - 1, this.getRow(maxY));
+        for (int row = fromRow; row <= toRow; row++) {
+            // The cells between every pair of crossings of the row's center line are inside the polygon
+            double y = this.getCellY(row);
+            int count = 0;
+            for (int i = 0; i < corners.length; i++) {
+                Translation2d start = corners[i];
+                Translation2d end = corners[(i + 1) % corners.length];
+                if ((start.getY() <= y) != (end.getY() <= y)) {
+                    crossings[count++] = start.getX()
+                            + ((y - start.getY()) / (end.getY() - start.getY())) * (end.getX() - start.getX());
+                }
+            }
+            Arrays.sort(crossings, 0, count);
+
+            for (int i = 0; i + 1 < count; i += 2) {
+                int fromColumn = Math.max(0, (int) Math.ceil(((crossings[i] - this.minX) / this.resolution) - 0.5));
+                int toColumn = Math.min(this.columns - 1, (int) Math.floor(((crossings[i + 1] - this.minX) / this.resolution) - 0.5));
+                if (fromColumn <= toColumn)
+                    this.cells.set(this.getIndex(fromColumn, row), this.getIndex(toColumn, row) + 1);
+            }
+        }
+    }
+
+    public void clear() {
+        this.cells.clear();
+    }
+
+    public boolean isOccupied(int column, int row) {
+        if (!this.contains(column, row))
+            return true;
+        return this.cells.get(this.getIndex(column, row));
+    }
+
+    public boolean isOccupied(double x, double y) {
+        return this.isOccupied(this.getColumn(x), this.getRow(y));
+    }
+
+    public boolean contains(int column, int row) {
+        return column >= 0 && column < this.columns && row >= 0 && row < this.rows;
+    }
+
+    public int getColumn(double x) {
+        return (int) Math.floor((x - this.minX) / this.resolution);
+    }
+
+    public int getRow(double y) {
+        return (int) Math.floor((y - this.minY) / this.resolution);
+    }
+
+    /**
+     * Returns the bit of a cell, which is its row times the amount of columns plus its column.
+     *
+     * @param column The column of the cell
+     * @param row The row of the cell
+     * @return The index of the cell's bit
+     */
+    public int getIndex(int column, int row) {
+        return (row * this.columns) + column;
+    }
+
+    public double getCellX(int column) {
+        return this.minX + ((column + 0.5) * this.resolution);
+    }
+
+    public double getCellY(int row) {
+        return this.minY + ((row + 0.5) * this.resolution);
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return this.minX + (this.columns * this.resolution);
+    }
+
+    public double getMaxY() {
+        return this.minY + (this.rows * this.resolution);
+    }
+
+    public double getResolution() {
+        return resolution;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the blocked cells. The bit set is the map itself, so it must not be changed.
+     *
+     * @return The blocked cells
+     */
+    public BitSet getCells() {
+        return cells;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ObstacleMap that)) return false;
+        return Double.compare(that.minX, minX) == 0 && Double.compare(that.minY, minY) == 0
+                && Double.compare(that.resolution, resolution) == 0
+                && columns == that.columns && rows == that.rows && cells.equals(that.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minX, minY, resolution, columns, rows, cells);
+    }
+}
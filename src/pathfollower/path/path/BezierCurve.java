@@ -9,13 +9,26 @@ import pathfollower.path.util.Waypoint;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @SuppressWarnings(value = "unused")
 public class BezierCurve extends Path {
 
-    public BezierCurve(Constants constants, List<Translation2d> waypoints) {
-        super(constants, 0.0001,
-                waypoints.parallelStream().map(t -> new Waypoint(t, 0, 0)).toList());
+    public BezierCurve(Constants constants, List<? extends Translation2d> waypoints) {
+        this(constants, 0.0001, waypoints);
+    }
+
+    /**
+     * Constructs a curve with a custom resolution.
+     *
+     * @param constants The constants of the path
+     * @param dx The step of t the derivatives and the distances are calculated with
+     * @param waypoints The control points of the curve
+     */
+    public BezierCurve(Constants constants, double dx, List<? extends Translation2d> waypoints) {
+        super(constants, dx,
+                waypoints.parallelStream().map(t -> new Waypoint(t, 0, 0))
+                        .collect(Collectors.toCollection(ArrayList::new)));
     }
 
     public BezierCurve(Constants constants, Translation2d... waypoints) {
@@ -42,29 +55,35 @@ public class BezierCurve extends Path {
         return points;
     }
 
+    // Evaluates the Bernstein polynomial with a Horner like scheme, which gives the same point as
+    // de Casteljau's algorithm without allocating the intermediate points
     @Override
     public double getX(double t) {
-        List<Double> pointsX = waypoints.stream().map(Translation2d::getX).toList();
-        while (pointsX.size() > 1) {
-            List<Double> newX = new ArrayList<>();
-            for (int i = 0; i < pointsX.size() - 1; i++) {
-                newX.add(pointsX.get(i) + (t * (pointsX.get(i + 1) - pointsX.get(i))));
-            }
-            pointsX = newX;
+        int degree = this.waypoints.size() - 1;
+        double s = 1 - t;
+        double power = 1;
+        double binomial = 1;
+        double value = this.waypoints.get(0).getX() * s;
+        for (int i = 1; i < degree; i++) {
+            power *= t;
+            binomial = binomial * (degree - i + 1) / i;
+            value = (value + (power * binomial * this.waypoints.get(i).getX())) * s;
         }
-        return pointsX.get(0);
+        return value + (power * t * this.waypoints.get(degree).getX());
     }
 
     @Override
     public double getY(double t) {
-        List<Double> pointsY = waypoints.stream().map(Translation2d::getY).toList();
-        while (pointsY.size() > 1) {
-            List<Double> newY = new ArrayList<>();
-            for (int i = 0; i < pointsY.size() - 1; i++) {
-                newY.add(pointsY.get(i) + (t * (pointsY.get(i + 1) - pointsY.get(i))));
-            }
-            pointsY = newY;
+        int degree = this.waypoints.size() - 1;
+        double s = 1 - t;
+        double power = 1;
+        double binomial = 1;
+        double value = this.waypoints.get(0).getY() * s;
+        for (int i = 1; i < degree; i++) {
+            power *= t;
+            binomial = binomial * (degree - i + 1) / i;
+            value = (value + (power * binomial * this.waypoints.get(i).getY())) * s;
         }
-        return pointsY.get(0);
+        return value + (power * t * this.waypoints.get(degree).getY());
     }
 }
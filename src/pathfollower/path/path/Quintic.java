@@ -65,11 +65,24 @@ public class Quintic extends Path {
 
     @Override
     public double getX(double t) {
-        return this.getLocation(t).getX();
+        return this.getSegmentWaypoint(t).getX();
     }
 
     @Override
     public double getY(double t) {
-        return this.getLocation(t).getY();
+        return this.getSegmentWaypoint(t).getY();
+    }
+
+    // Same waypoint getLocation ends on, without allocating the angles it walks through
+    private Waypoint getSegmentWaypoint(double t) {
+        t = Math.max(this.dx / 2, Math.min(1 - (this.dx / 2), t));
+
+        double size = this.getWaypoints().size();
+        int waypointIndex = (int) (t * (size - 1));
+        t = (size - 1) * (t - (waypointIndex / (size - 1)));
+
+        if (t > 0.5)
+            return this.getWaypoint(waypointIndex + 1);
+        return this.getWaypoint(waypointIndex);
     }
 }
@@ -0,0 +1,393 @@
+package pathfollower.path.pid;
+
+import pathfollower.math.MathUtil;
+
+import java.util.Arrays;
+
+/**
+ * Implements many independent PID control loops that share a period. The state of every controller is
+ * stored in primitive arrays indexed by the controller, so calculating all of them is a single loop
+ * instead of one {@link PIDController} object per loop.
+ *
+ * <p>Every controller behaves exactly like a {@link PIDController} with the same gains, continuous
+ * input and integrator range.
+ */
+public class PIDControllerBank {
+    private final int m_size;
+
+    // The period (in seconds) of the loop that calls the controllers
+    private final double m_period;
+
+    private final double[] m_kp;
+    private final double[] m_ki;
+    private final double[] m_kd;
+
+    private final double[] m_maximumIntegral;
+    private final double[] m_minimumIntegral;
+
+    private final double[] m_maximumInput;
+    private final double[] m_minimumInput;
+    private final boolean[] m_continuous;
+
+    private final double[] m_positionError;
+    private final double[] m_velocityError;
+    private final double[] m_prevError;
+    private final double[] m_totalError;
+
+    private final double[] m_positionTolerance;
+    private final double[] m_velocityTolerance;
+
+    private final double[] m_setpoint;
+    private final double[] m_measurement;
+
+    private final boolean[] m_haveMeasurement;
+    private final boolean[] m_haveSetpoint;
+
+    /**
+     * Allocates a bank of controllers with the given constants for kp, ki, and kd and a default period
+     * of 0.02 seconds.
+     *
+     * @param size The amount of controllers.
+     * @param kp The proportional coefficient of every controller.
+     * @param ki The integral coefficient of every controller.
+     * @param kd The derivative coefficient of every controller.
+     */
+    public PIDControllerBank(int size, double kp, double ki, double kd) {
+        this(size, kp, ki, kd, 0.02);
+    }
+
+    /**
+     * Allocates a bank of controllers with the given constants for kp, ki, and kd.
+     *
+     * @param size The amount of controllers.
+     * @param kp The proportional coefficient of every controller.
+     * @param ki The integral coefficient of every controller.
+     * @param kd The derivative coefficient of every controller.
+     * @param period The period between controller updates in seconds. Must be non-zero and positive.
+     */
+    public PIDControllerBank(int size, double kp, double ki, double kd, double period) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Bank size must not be negative!");
+        }
+        if (period <= 0) {
+            throw new IllegalArgumentException("Controller period must be a non-zero positive number!");
+        }
+        m_size = size;
+        m_period = period;
+
+        m_kp = filled(size, kp);
+        m_ki = filled(size, ki);
+        m_kd = filled(size, kd);
+
+        m_maximumIntegral = filled(size, 1.0);
+        m_minimumIntegral = filled(size, -1.0);
+
+        m_maximumInput = new double[size];
+        m_minimumInput = new double[size];
+        m_continuous = new boolean[size];
+
+        m_positionError = new double[size];
+        m_velocityError = new double[size];
+        m_prevError = new double[size];
+        m_totalError = new double[size];
+
+        m_positionTolerance = filled(size, 0.05);
+        m_velocityTolerance = filled(size, Double.POSITIVE_INFINITY);
+
+        m_setpoint = new double[size];
+        m_measurement = new double[size];
+
+        m_haveMeasurement = new boolean[size];
+        m_haveSetpoint = new boolean[size];
+    }
+
+    private static double[] filled(int size, double value) {
+        double[] array = new double[size];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    /**
+     * Returns the amount of controllers in the bank.
+     *
+     * @return The amount of controllers.
+     */
+    public int size() {
+        return m_size;
+    }
+
+    /**
+     * Returns the period of the controllers.
+     *
+     * @return the period of the controllers.
+     */
+    public double getPeriod() {
+        return m_period;
+    }
+
+    /**
+     * Sets the gain parameters of a controller.
+     *
+     * @param index The index of the controller.
+     * @param kp The proportional coefficient.
+     * @param ki The integral coefficient.
+     * @param kd The derivative coefficient.
+     */
+    public void setPID(int index, double kp, double ki, double kd) {
+        m_kp[index] = kp;
+        m_ki[index] = ki;
+        m_kd[index] = kd;
+    }
+
+    /**
+     * Get the proportional coefficient of a controller.
+     *
+     * @param index The index of the controller.
+     * @return proportional coefficient
+     */
+    public double getP(int index) {
+        return m_kp[index];
+    }
+
+    /**
+     * Get the integral coefficient of a controller.
+     *
+     * @param index The index of the controller.
+     * @return integral coefficient
+     */
+    public double getI(int index) {
+        return m_ki[index];
+    }
+
+    /**
+     * Get the differential coefficient of a controller.
+     *
+     * @param index The index of the controller.
+     * @return differential coefficient
+     */
+    public double getD(int index) {
+        return m_kd[index];
+    }
+
+    /**
+     * Sets the setpoint of a controller.
+     *
+     * @param index The index of the controller.
+     * @param setpoint The desired setpoint.
+     */
+    public void setSetpoint(int index, double setpoint) {
+        m_setpoint[index] = setpoint;
+        m_haveSetpoint[index] = true;
+
+        m_positionError[index] = error(index, setpoint, m_measurement[index]);
+        m_velocityError[index] = (m_positionError[index] - m_prevError[index]) / m_period;
+    }
+
+    /**
+     * Returns the current setpoint of a controller.
+     *
+     * @param index The index of the controller.
+     * @return The current setpoint.
+     */
+    public double getSetpoint(int index) {
+        return m_setpoint[index];
+    }
+
+    /**
+     * Returns true if the error of a controller is within the tolerance of its setpoint.
+     *
+     * @param index The index of the controller.
+     * @return Whether the error is within the acceptable bounds.
+     */
+    public boolean atSetpoint(int index) {
+        return m_haveMeasurement[index]
+                && m_haveSetpoint[index]
+                && Math.abs(m_positionError[index]) < m_positionTolerance[index]
+                && Math.abs(m_velocityError[index]) < m_velocityTolerance[index];
+    }
+
+    /**
+     * Enables continuous input of a controller.
+     *
+     * @param index The index of the controller.
+     * @param minimumInput The minimum value expected from the input.
+     * @param maximumInput The maximum value expected from the input.
+     */
+    public void enableContinuousInput(int index, double minimumInput, double maximumInput) {
+        m_continuous[index] = true;
+        m_minimumInput[index] = minimumInput;
+        m_maximumInput[index] = maximumInput;
+    }
+
+    /**
+     * Enables continuous input of every controller.
+     *
+     * @param minimumInput The minimum value expected from the input.
+     * @param maximumInput The maximum value expected from the input.
+     */
+    public void enableContinuousInput(double minimumInput, double maximumInput) {
+        for (int i = 0; i < m_size; i++) {
+            enableContinuousInput(i, minimumInput, maximumInput);
+        }
+    }
+
+    /**
+     * Disables continuous input of a controller.
+     *
+     * @param index The index of the controller.
+     */
+    public void disableContinuousInput(int index) {
+        m_continuous[index] = false;
+    }
+
+    /**
+     * Returns true if continuous input is enabled on a controller.
+     *
+     * @param index The index of the controller.
+     * @return True if continuous input is enabled.
+     */
+    public boolean isContinuousInputEnabled(int index) {
+        return m_continuous[index];
+    }
+
+    /**
+     * Sets the minimum and maximum values for the integrator of a controller.
+     *
+     * @param index The index of the controller.
+     * @param minimumIntegral The minimum value of the integrator.
+     * @param maximumIntegral The maximum value of the integrator.
+     */
+    public void setIntegratorRange(int index, double minimumIntegral, double maximumIntegral) {
+        m_minimumIntegral[index] = minimumIntegral;
+        m_maximumIntegral[index] = maximumIntegral;
+    }
+
+    /**
+     * Sets the error which is considered tolerable for use with atSetpoint().
+     *
+     * @param index The index of the controller.
+     * @param positionTolerance Position error which is tolerable.
+     * @param velocityTolerance Velocity error which is tolerable.
+     */
+    public void setTolerance(int index, double positionTolerance, double velocityTolerance) {
+        m_positionTolerance[index] = positionTolerance;
+        m_velocityTolerance[index] = velocityTolerance;
+    }
+
+    /**
+     * Returns the difference between the setpoint and the measurement of a controller.
+     *
+     * @param index The index of the controller.
+     * @return The error.
+     */
+    public double getPositionError(int index) {
+        return m_positionError[index];
+    }
+
+    /**
+     * Returns the velocity error of a controller.
+     *
+     * @param index The index of the controller.
+     * @return The velocity error.
+     */
+    public double getVelocityError(int index) {
+        return m_velocityError[index];
+    }
+
+    /**
+     * Calculates the next output of every controller, the same as calling
+     * {@link PIDController#calculate(double, double)} on each of them.
+     *
+     * @param measurements The current measurement of every controller.
+     * @param setpoints The new setpoint of every controller.
+     * @param outputs The array to write the output of every controller into.
+     */
+    public void calculate(double[] measurements, double[] setpoints, double[] outputs) {
+        checkLength(measurements);
+        checkLength(setpoints);
+        checkLength(outputs);
+
+        for (int i = 0; i < m_size; i++) {
+            m_setpoint[i] = setpoints[i];
+            m_haveSetpoint[i] = true;
+            // setSetpoint() measures the error from the last measurement, which becomes the previous error
+            m_prevError[i] = error(i, setpoints[i], m_measurement[i]);
+        }
+        calculateOutputs(measurements, outputs);
+    }
+
+    /**
+     * Calculates the next output of every controller with their current setpoints, the same as calling
+     * {@link PIDController#calculate(double)} on each of them.
+     *
+     * @param measurements The current measurement of every controller.
+     * @param outputs The array to write the output of every controller into.
+     */
+    public void calculate(double[] measurements, double[] outputs) {
+        checkLength(measurements);
+        checkLength(outputs);
+
+        System.arraycopy(m_positionError, 0, m_prevError, 0, m_size);
+        calculateOutputs(measurements, outputs);
+    }
+
+    private void calculateOutputs(double[] measurements, double[] outputs) {
+        for (int i = 0; i < m_size; i++) {
+            double measurement = measurements[i];
+            m_measurement[i] = measurement;
+            m_haveMeasurement[i] = true;
+
+            double positionError = error(i, m_setpoint[i], measurement);
+            double velocityError = (positionError - m_prevError[i]) / m_period;
+            m_positionError[i] = positionError;
+            m_velocityError[i] = velocityError;
+
+            double ki = m_ki[i];
+            if (ki != 0) {
+                m_totalError[i] =
+                        MathUtil.clamp(
+                                m_totalError[i] + positionError * m_period,
+                                m_minimumIntegral[i] / ki,
+                                m_maximumIntegral[i] / ki);
+            }
+
+            outputs[i] = m_kp[i] * positionError + ki * m_totalError[i] + m_kd[i] * velocityError;
+        }
+    }
+
+    private double error(int index, double setpoint, double measurement) {
+        if (m_continuous[index]) {
+            double errorBound = (m_maximumInput[index] - m_minimumInput[index]) / 2.0;
+            return MathUtil.inputModulus(setpoint - measurement, -errorBound, errorBound);
+        }
+        return setpoint - measurement;
+    }
+
+    private void checkLength(double[] array) {
+        if (array.length < m_size) {
+            throw new IllegalArgumentException("Expected at least " + m_size + " values but got " + array.length);
+        }
+    }
+
+    /**
+     * Resets the previous error and the integral term of a controller.
+     *
+     * @param index The index of the controller.
+     */
+    public void reset(int index) {
+        m_positionError[index] = 0;
+        m_prevError[index] = 0;
+        m_totalError[index] = 0;
+        m_velocityError[index] = 0;
+        m_haveMeasurement[index] = false;
+    }
+
+    /** Resets the previous error and the integral term of every controller. */
+    public void reset() {
+        Arrays.fill(m_positionError, 0);
+        Arrays.fill(m_prevError, 0);
+        Arrays.fill(m_totalError, 0);
+        Arrays.fill(m_velocityError, 0);
+        Arrays.fill(m_haveMeasurement, false);
+    }
+}
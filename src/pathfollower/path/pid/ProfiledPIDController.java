@@ -1,6 +1,7 @@
 package pathfollower.path.pid;
 
 import pathfollower.math.MathUtil;
+import pathfollower.util.Clock;
 
 /**
  * Implements a PID control loop whose setpoint is constrained by a trapezoid profile. Users should
@@ -16,7 +17,15 @@ public class ProfiledPIDController {
     private TrapezoidProfile.State m_setpoint = new TrapezoidProfile.State();
     private TrapezoidProfile.Constraints m_constraints;
 
-    private long initTime;
+    // The profile is only rebuilt when the goal or constraints it was built for change or on reset
+    private TrapezoidProfile m_profile;
+    private double m_profileGoalPosition;
+    private double m_profileGoalVelocity;
+    private double m_profileMaxVelocity;
+    private double m_profileMaxAcceleration;
+
+    private Clock m_clock = Clock.SYSTEM;
+    private double initTime = Double.NaN;
 
     /**
      * Allocates a ProfiledPIDController with the given constants for Kp, Ki, and Kd.
@@ -147,7 +156,8 @@ public class ProfiledPIDController {
      * @param goal The desired goal state.
      */
     public void setGoal(TrapezoidProfile.State goal) {
-        m_goal = goal;
+        m_goal.position = goal.position;
+        m_goal.velocity = goal.velocity;
     }
 
     /**
@@ -156,7 +166,8 @@ public class ProfiledPIDController {
      * @param goal The desired goal position.
      */
     public void setGoal(double goal) {
-        m_goal = new TrapezoidProfile.State(goal, 0);
+        m_goal.position = goal;
+        m_goal.velocity = 0;
     }
 
     /**
@@ -301,17 +312,47 @@ public class ProfiledPIDController {
             m_setpoint.position = setpointMinDistance + measurement;
         }
 
-        if (initTime == 0) {
-            initTime = System.currentTimeMillis();
+        if (m_profile == null || isProfileOutdated()) {
+            m_profile = new TrapezoidProfile(m_constraints, m_goal, m_setpoint);
+            m_profileGoalPosition = m_goal.position;
+            m_profileGoalVelocity = m_goal.velocity;
+            m_profileMaxVelocity = m_constraints.maxVelocity;
+            m_profileMaxAcceleration = m_constraints.maxAcceleration;
+            initTime = Double.NaN;
+        }
+
+        if (Double.isNaN(initTime)) {
+            initTime = m_clock.getTime();
         }
 
-        var profile = new TrapezoidProfile(m_constraints, m_goal, m_setpoint);
-        m_setpoint = profile.calculate(getTime());
+        m_profile.calculate(getTime(), m_setpoint);
         return m_controller.calculate(measurement, m_setpoint.position);
     }
 
+    private boolean isProfileOutdated() {
+        // The continuous input wrapping can move the goal by a rounding error without changing it
+        return Math.abs(m_goal.position - m_profileGoalPosition) > 1e-9
+                || Math.abs(m_goal.velocity - m_profileGoalVelocity) > 1e-9
+                || m_constraints.maxVelocity != m_profileMaxVelocity
+                || m_constraints.maxAcceleration != m_profileMaxAcceleration;
+    }
+
+    /**
+     * Returns the time since the current profile started.
+     *
+     * @return The time since the current profile started in seconds.
+     */
     public double getTime() {
-        return (System.currentTimeMillis() - this.initTime) / 1000d;
+        return m_clock.getTime() - this.initTime;
+    }
+
+    /**
+     * Sets the clock the profile is timed by.
+     *
+     * @param clock The new clock.
+     */
+    public void setClock(Clock clock) {
+        m_clock = clock;
     }
 
     /**
@@ -358,10 +399,7 @@ public class ProfiledPIDController {
      * @param measurement The current measured State of the system.
      */
     public void reset(TrapezoidProfile.State measurement) {
-        m_controller.reset();
-        m_setpoint = measurement;
-
-        this.initTime = 0;
+        reset(measurement.position, measurement.velocity);
     }
 
     /**
@@ -371,7 +409,12 @@ public class ProfiledPIDController {
      * @param measuredVelocity The current measured velocity of the system.
      */
     public void reset(double measuredPosition, double measuredVelocity) {
-        reset(new TrapezoidProfile.State(measuredPosition, measuredVelocity));
+        m_controller.reset();
+        m_setpoint.position = measuredPosition;
+        m_setpoint.velocity = measuredVelocity;
+
+        m_profile = null;
+        this.initTime = Double.NaN;
     }
 
     /**
@@ -162,27 +162,43 @@ public class TrapezoidProfile {
    * @return The position and velocity of the profile at time t.
    */
   public State calculate(double t) {
-    State result = new State(m_initial.position, m_initial.velocity);
+    return calculate(t, new State());
+  }
+
+  /**
+   * Calculate the correct position and velocity for the profile at a time t where the beginning of
+   * the profile was at time t = 0, writing it into the given state instead of allocating a new one.
+   *
+   * @param t The time since the beginning of the profile.
+   * @param result The state to write the position and velocity of the profile at time t into.
+   * @return The given state.
+   */
+  public State calculate(double t, State result) {
+    double position = m_initial.position;
+    double velocity = m_initial.velocity;
 
     if (t < m_endAccel) {
-      result.velocity += t * m_constraints.maxAcceleration;
-      result.position += (m_initial.velocity + t * m_constraints.maxAcceleration / 2.0) * t;
+      velocity += t * m_constraints.maxAcceleration;
+      position += (m_initial.velocity + t * m_constraints.maxAcceleration / 2.0) * t;
     } else if (t < m_endFullSpeed) {
-      result.velocity = m_constraints.maxVelocity;
-      result.position +=
+      velocity = m_constraints.maxVelocity;
+      position +=
           (m_initial.velocity + m_endAccel * m_constraints.maxAcceleration / 2.0) * m_endAccel
               + m_constraints.maxVelocity * (t - m_endAccel);
     } else if (t <= m_endDeccel) {
-      result.velocity = m_goal.velocity + (m_endDeccel - t) * m_constraints.maxAcceleration;
+      velocity = m_goal.velocity + (m_endDeccel - t) * m_constraints.maxAcceleration;
       double timeLeft = m_endDeccel - t;
-      result.position =
+      position =
           m_goal.position
               - (m_goal.velocity + timeLeft * m_constraints.maxAcceleration / 2.0) * timeLeft;
     } else {
-      result = m_goal;
+      position = m_goal.position;
+      velocity = m_goal.velocity;
     }
 
-    return direct(result);
+    result.position = position * m_direction;
+    result.velocity = velocity * m_direction;
+    return result;
   }
 
   public double getM_endAccel() {
@@ -0,0 +1,166 @@
+package pathfollower.path.telemetry;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies in nanoseconds with a fixed size, like HdrHistogram. Every power of two is split
+ * into the same amount of linear buckets, so every value is kept with the same relative precision of about
+ * 3% from a nanosecond up to about a minute, and recording a value is only finding its bucket with a few
+ * shifts.
+ *
+ * <p>The histogram is written by one thread, the one that records into it and resets it. Another thread reads it
+ * through {@link #snapshot(LatencyHistogram)}, which copies it under a seqlock: the writer makes the version odd
+ * while it changes the histogram, and the copy is taken again until it was made between two reads of the same
+ * even version. Recording stays a few plain writes and never waits for the reader, and the reader never sees the
+ * count of a latency without the latency itself.
+ */
+public class LatencyHistogram {
+    // The values below the first power of two get a bucket each, and every power of two above them is split
+    // into half as many buckets, since the lower half of its bits are already the power below it
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    private static final int MAX_MAGNITUDE = 35;
+    /** The highest latency the histogram tells apart, longer latencies are counted as this one */
+    public static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(LatencyHistogram.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] counts = new long[(MAX_MAGNITUDE - SUB_BUCKET_BITS + 3) * SUB_BUCKET_HALF];
+    private long count = 0;
+    private long sum = 0;
+    private long max = 0;
+    // Odd while the writer changes the histogram
+    private volatile long version = 0;
+
+    /**
+     * Adds a latency to the histogram.
+     *
+     * @param nanos The latency in nanoseconds, negative latencies are counted as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        long version = this.beginWrite();
+        this.counts[getIndex(value)]++;
+        this.count++;
+        this.sum += value;
+        this.max = Math.max(this.max, value);
+        this.endWrite(version);
+    }
+
+    private long beginWrite() {
+        long version = (long) VERSION.getOpaque(this);
+        VERSION.setOpaque(this, version + 1);
+        // The changes can't be seen before the version is odd
+        VarHandle.storeStoreFence();
+        return version;
+    }
+
+    private void endWrite(long version) {
+        // A release, so the changes are seen before the version is even again
+        VERSION.setRelease(this, version + 2);
+    }
+
+    /**
+     * Copies the histogram into another one, consistently even while another thread records into it. The copy
+     * is only taken again if the writer changed the histogram during it.
+     *
+     * @param snapshot The histogram to copy into, owned by the reading thread
+     * @return The given snapshot
+     */
+    public LatencyHistogram snapshot(LatencyHistogram snapshot) {
+        while (true) {
+            long version = this.version;
+            if ((version & 1) == 0) {
+                System.arraycopy(this.counts, 0, snapshot.counts, 0, this.counts.length);
+                snapshot.count = this.count;
+                snapshot.sum = this.sum;
+                snapshot.max = this.max;
+                // The copy is read before the version is checked again
+                VarHandle.loadLoadFence();
+                if (this.version == version)
+                    return snapshot;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static int getIndex(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value | (SUB_BUCKET_COUNT - 1));
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        return (shift * SUB_BUCKET_HALF) + (int) (value >>> shift);
+    }
+
+    /**
+     * Returns the highest latency that falls in the same bucket as the given bucket's values.
+     */
+    private static long getHighestValue(int index) {
+        int shift = Math.max(0, (index / SUB_BUCKET_HALF) - 1);
+        long subBucket = index - ((long) shift * SUB_BUCKET_HALF);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Returns the latency the given percentage of the recorded latencies are at or below. The latency is the
+     * top of its bucket, so it is at most about 3% higher than the real one, but never higher than the max.
+     *
+     * @param percentile The percentage, between 0 and 100
+     * @return The latency in nanoseconds, zero if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        if (this.count == 0)
+            return 0;
+        long target = Math.max(1, (long) Math.ceil((Math.max(0, Math.min(100, percentile)) / 100) * this.count));
+        long total = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            total += this.counts[i];
+            if (total >= target)
+                return Math.min(this.max, getHighestValue(i));
+        }
+        return this.max;
+    }
+
+    public long getMedian() {
+        return this.getPercentile(50);
+    }
+
+    /**
+     * @return The average latency in nanoseconds, zero if nothing was recorded
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.sum / this.count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void reset() {
+        long version = this.beginWrite();
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.sum = 0;
+        this.max = 0;
+        this.endWrite(version);
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram(count: " + this.count + ", p50: " + this.getMedian() + " ns, p99: "
+                + this.getPercentile(99) + " ns, max: " + this.max + " ns)";
+    }
+}
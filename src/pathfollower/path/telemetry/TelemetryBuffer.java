@@ -0,0 +1,91 @@
+package pathfollower.path.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A preallocated ring of telemetry records, written by the control loop and read by one other thread without
+ * locking or allocating. The records are kept in one array of doubles, and the producer and the consumer each
+ * only move their own counter, so the only thing between them is publishing the counters. When the consumer
+ * falls behind and the ring is full, new records are dropped and counted instead of waiting for it.
+ */
+public class TelemetryBuffer {
+    private final double[] values;
+    private final int mask;
+
+    // The amount of records ever written and ever read, a record is at its count modulo the capacity
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+
+    /**
+     * Constructs a buffer.
+     *
+     * @param capacity The amount of records the buffer holds, rounded up to a power of two
+     */
+    public TelemetryBuffer(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Telemetry capacity must be a non-zero positive number!");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.values = new double[size * TelemetryRecord.FIELDS];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds a record to the buffer. Only the producer thread may call this.
+     *
+     * @param record The record to copy into the buffer
+     * @return Whether the record was added, false if the buffer is full and it was dropped
+     */
+    public boolean offer(TelemetryRecord record) {
+        long tail = this.tail.get();
+        if (tail - this.head.get() > this.mask) {
+            // Only the producer writes the counter, the consumer only needs to see the latest value eventually
+            this.dropped.lazySet(this.dropped.get() + 1);
+            return false;
+        }
+
+        record.write(this.values, (int) (tail & this.mask) * TelemetryRecord.FIELDS);
+        // Publishes the record only after it is written
+        this.tail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Takes the oldest record out of the buffer. Only the consumer thread may call this.
+     *
+     * @param record The record to copy the oldest record into
+     * @return Whether there was a record, false if the buffer is empty
+     */
+    public boolean poll(TelemetryRecord record) {
+        long head = this.head.get();
+        if (head == this.tail.get())
+            return false;
+
+        record.read(this.values, (int) (head & this.mask) * TelemetryRecord.FIELDS);
+        // Frees the slot only after it is read
+        this.head.lazySet(head + 1);
+        return true;
+    }
+
+    /**
+     * Returns the amount of records waiting to be read.
+     *
+     * @return The amount of records
+     */
+    public int size() {
+        return (int) (this.tail.get() - this.head.get());
+    }
+
+    public int getCapacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * Returns the amount of records dropped because the buffer was full.
+     *
+     * @return The amount of dropped records
+     */
+    public long getDropped() {
+        return this.dropped.get();
+    }
+}
@@ -0,0 +1,137 @@
+package pathfollower.path.telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a telemetry log written by {@link TelemetryLogWriter}. The file is mapped in the same segments it was
+ * written in, so reading a record is only reading its bytes, and the time of every few records is kept in a
+ * sparse index to find a time without touching the whole file. Only the records the header counts are read, the
+ * file can be longer than them.
+ */
+public class TelemetryLogReader implements AutoCloseable {
+    // The amount of records between two entries of the index
+    private static final int INDEX_INTERVAL = 1024;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long count;
+    private final double[] index;
+
+    /**
+     * Opens a log.
+     *
+     * @param file The file of the log
+     * @throws IOException If the file can't be read or isn't a telemetry log
+     */
+    public TelemetryLogReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            if (this.channel.size() < TelemetryLogWriter.HEADER_SIZE)
+                throw new IOException("Telemetry log is too short: " + file);
+            MappedByteBuffer header = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, TelemetryLogWriter.HEADER_SIZE);
+            if (header.getInt(0) != TelemetryLogWriter.MAGIC || header.getInt(4) != TelemetryLogWriter.VERSION
+                    || header.getInt(8) != TelemetryRecord.FIELDS)
+                throw new IOException("Not a telemetry log: " + file);
+
+            long length = (this.channel.size() - TelemetryLogWriter.HEADER_SIZE) / TelemetryRecord.BYTES;
+            this.count = Math.min(header.getLong(TelemetryLogWriter.COUNT_OFFSET), length);
+
+            int segmentCount = (int) ((this.count + TelemetryLogWriter.SEGMENT_RECORDS - 1) / TelemetryLogWriter.SEGMENT_RECORDS);
+            this.segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = (long) i * TelemetryLogWriter.SEGMENT_RECORDS;
+                long records = Math.min(TelemetryLogWriter.SEGMENT_RECORDS, this.count - first);
+                this.segments[i] = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                        TelemetryLogWriter.HEADER_SIZE + (first * TelemetryRecord.BYTES), records * TelemetryRecord.BYTES);
+            }
+
+            this.index = new double[(int) ((this.count + INDEX_INTERVAL - 1) / INDEX_INTERVAL)];
+            for (int i = 0; i < this.index.length; i++) {
+                this.index[i] = this.getTime((long) i * INDEX_INTERVAL);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a record of the log.
+     *
+     * @param index The index of the record
+     * @param record The record to read into
+     * @return The given record
+     */
+    public TelemetryRecord read(long index, TelemetryRecord record) {
+        record.read(this.getSegment(index), this.getOffset(index));
+        return record;
+    }
+
+    public double getTime(long index) {
+        return this.getSegment(index).getDouble(this.getOffset(index));
+    }
+
+    /**
+     * Finds the last record at or before a time, expecting the times of the records to only grow.
+     *
+     * @param time The time
+     * @return The index of the record, 0 if the time is before the first record and -1 if the log is empty
+     */
+    public long seek(double time) {
+        if (this.count == 0)
+            return -1;
+
+        // The index narrows the search down to the records between two of its entries
+        int low = 0;
+        int high = this.index.length;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (this.index[middle] <= time)
+                low = middle;
+            else
+                high = middle;
+        }
+
+        long first = (long) low * INDEX_INTERVAL;
+        long last = Math.min(this.count, first + INDEX_INTERVAL) - 1;
+        while (first < last) {
+            long middle = (first + last + 1) >>> 1;
+            if (this.getTime(middle) <= time)
+                first = middle;
+            else
+                last = middle - 1;
+        }
+        return first;
+    }
+
+    private MappedByteBuffer getSegment(long index) {
+        if (index < 0 || index >= this.count)
+            throw new IndexOutOfBoundsException("Record " + index + " is outside the log of " + this.count + " records");
+        return this.segments[(int) (index / TelemetryLogWriter.SEGMENT_RECORDS)];
+    }
+
+    private int getOffset(long index) {
+        return (int) (index % TelemetryLogWriter.SEGMENT_RECORDS) * TelemetryRecord.BYTES;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public double getStartTime() {
+        return this.count > 0 ? this.getTime(0) : 0;
+    }
+
+    public double getEndTime() {
+        return this.count > 0 ? this.getTime(this.count - 1) : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
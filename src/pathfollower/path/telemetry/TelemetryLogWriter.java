@@ -0,0 +1,124 @@
+package pathfollower.path.telemetry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends telemetry records to a binary file. Every record has the same size, so the file is a header followed
+ * by an array of records, and it is written through memory mapped segments of the file instead of a stream.
+ * The header holds the amount of records, which is only updated when the log is flushed, so a reader of a log
+ * that wasn't closed sees the records up to the last flush. The file isn't cut to the records when the log is
+ * closed, since a file can't be truncated while it is still mapped on every system and a mapping is only
+ * unmapped once it is garbage collected, so the rest of the last segment is left as zeros the reader skips.
+ */
+public class TelemetryLogWriter implements AutoCloseable {
+    static final int MAGIC = 0x544C4F47;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int COUNT_OFFSET = 16;
+    // The amount of records in one mapped segment of the file
+    static final int SEGMENT_RECORDS = 1 << 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int flushInterval;
+
+    private MappedByteBuffer segment;
+    private long segmentIndex = -1;
+    private long count = 0;
+    private long lastFlush = 0;
+
+    /**
+     * Creates a log, replacing the file if it exists.
+     *
+     * @param file The file of the log
+     * @param flushInterval The amount of records between flushes of the log to the disk
+     * @throws IOException If the file can't be created
+     */
+    public TelemetryLogWriter(File file, int flushInterval) throws IOException {
+        if (flushInterval < 1)
+            throw new IllegalArgumentException("Flush interval must be a non-zero positive number!");
+        this.flushInterval = flushInterval;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.header.putInt(0, MAGIC);
+        this.header.putInt(4, VERSION);
+        this.header.putInt(8, TelemetryRecord.FIELDS);
+        this.header.putLong(COUNT_OFFSET, 0);
+    }
+
+    /**
+     * Appends a record to the log.
+     *
+     * @param record The record
+     * @throws IOException If the next segment of the file can't be mapped
+     */
+    public void append(TelemetryRecord record) throws IOException {
+        long segmentIndex = this.count / SEGMENT_RECORDS;
+        if (segmentIndex != this.segmentIndex) {
+            if (this.segment != null)
+                this.segment.force();
+            // Mapping past the end of the file grows it to the end of the segment
+            this.segment = this.channel.map(FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + (segmentIndex * SEGMENT_RECORDS * TelemetryRecord.BYTES),
+                    (long) SEGMENT_RECORDS * TelemetryRecord.BYTES);
+            this.segmentIndex = segmentIndex;
+        }
+
+        record.write(this.segment, (int) (this.count % SEGMENT_RECORDS) * TelemetryRecord.BYTES);
+        this.count++;
+
+        if (this.count - this.lastFlush >= this.flushInterval)
+            this.flush();
+    }
+
+    /**
+     * Appends every record waiting in a telemetry buffer to the log, so the log can be written by the consumer
+     * of the buffer.
+     *
+     * @param buffer The buffer
+     * @param record The record to read the buffer with
+     * @return The amount of records appended
+     * @throws IOException If the next segment of the file can't be mapped
+     */
+    public int drain(TelemetryBuffer buffer, TelemetryRecord record) throws IOException {
+        int drained = 0;
+        while (buffer.poll(record)) {
+            this.append(record);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Writes the records to the disk, and then the amount of records to the header.
+     */
+    public void flush() {
+        if (this.segment != null)
+            this.segment.force();
+        this.header.putLong(COUNT_OFFSET, this.count);
+        this.header.force();
+        this.lastFlush = this.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Flushes the log and closes its file, the header holds the final amount of records.
+     *
+     * @throws IOException If the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        this.segment = null;
+        this.channel.close();
+    }
+}
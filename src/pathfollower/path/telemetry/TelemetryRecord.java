@@ -0,0 +1,120 @@
+package pathfollower.path.telemetry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The state of one tick of the control loop. A record is reused between ticks and copied into and out of the
+ * telemetry buffer, so recording a tick doesn't allocate.
+ */
+public class TelemetryRecord {
+    /** The amount of values in a record */
+    public static final int FIELDS = 13;
+    /** The size of a record in bytes */
+    public static final int BYTES = FIELDS * Double.BYTES;
+
+    // The time of the tick in seconds
+    public double time;
+    // The pose of the robot, the heading in degrees
+    public double x;
+    public double y;
+    public double heading;
+    // The field relative velocity of the robot in m/s and its angular velocity in deg/s
+    public double velocityX;
+    public double velocityY;
+    public double omega;
+    // The t of the point on the path the robot is driven by
+    public double t;
+    // The point on the path the robot is driven by and the velocity wanted there
+    public double setpointX;
+    public double setpointY;
+    public double setpointVelocity;
+    // The distance from the robot to the setpoint, and the heading left to turn in degrees
+    public double positionError;
+    public double headingError;
+
+    void write(double[] values, int offset) {
+        values[offset] = this.time;
+        values[offset + 1] = this.x;
+        values[offset + 2] = this.y;
+        values[offset + 3] = this.heading;
+        values[offset + 4] = this.velocityX;
+        values[offset + 5] = this.velocityY;
+        values[offset + 6] = this.omega;
+        values[offset + 7] = this.t;
+        values[offset + 8] = this.setpointX;
+        values[offset + 9] = this.setpointY;
+        values[offset + 10] = this.setpointVelocity;
+        values[offset + 11] = this.positionError;
+        values[offset + 12] = this.headingError;
+    }
+
+    void read(double[] values, int offset) {
+        this.time = values[offset];
+        this.x = values[offset + 1];
+        this.y = values[offset + 2];
+        this.heading = values[offset + 3];
+        this.velocityX = values[offset + 4];
+        this.velocityY = values[offset + 5];
+        this.omega = values[offset + 6];
+        this.t = values[offset + 7];
+        this.setpointX = values[offset + 8];
+        this.setpointY = values[offset + 9];
+        this.setpointVelocity = values[offset + 10];
+        this.positionError = values[offset + 11];
+        this.headingError = values[offset + 12];
+    }
+
+    void write(ByteBuffer buffer, int offset) {
+        buffer.putDouble(offset, this.time);
+        buffer.putDouble(offset + 8, this.x);
+        buffer.putDouble(offset + 16, this.y);
+        buffer.putDouble(offset + 24, this.heading);
+        buffer.putDouble(offset + 32, this.velocityX);
+        buffer.putDouble(offset + 40, this.velocityY);
+        buffer.putDouble(offset + 48, this.omega);
+        buffer.putDouble(offset + 56, this.t);
+        buffer.putDouble(offset + 64, this.setpointX);
+        buffer.putDouble(offset + 72, this.setpointY);
+        buffer.putDouble(offset + 80, this.setpointVelocity);
+        buffer.putDouble(offset + 88, this.positionError);
+        buffer.putDouble(offset + 96, this.headingError);
+    }
+
+    void read(ByteBuffer buffer, int offset) {
+        this.time = buffer.getDouble(offset);
+        this.x = buffer.getDouble(offset + 8);
+        this.y = buffer.getDouble(offset + 16);
+        this.heading = buffer.getDouble(offset + 24);
+        this.velocityX = buffer.getDouble(offset + 32);
+        this.velocityY = buffer.getDouble(offset + 40);
+        this.omega = buffer.getDouble(offset + 48);
+        this.t = buffer.getDouble(offset + 56);
+        this.setpointX = buffer.getDouble(offset + 64);
+        this.setpointY = buffer.getDouble(offset + 72);
+        this.setpointVelocity = buffer.getDouble(offset + 80);
+        this.positionError = buffer.getDouble(offset + 88);
+        this.headingError = buffer.getDouble(offset + 96);
+    }
+
+    public void set(TelemetryRecord record) {
+        this.time = record.time;
+        this.x = record.x;
+        this.y = record.y;
+        this.heading = record.heading;
+        this.velocityX = record.velocityX;
+        this.velocityY = record.velocityY;
+        this.omega = record.omega;
+        this.t = record.t;
+        this.setpointX = record.setpointX;
+        this.setpointY = record.setpointY;
+        this.setpointVelocity = record.setpointVelocity;
+        this.positionError = record.positionError;
+        this.headingError = record.headingError;
+    }
+
+    @Override
+    public String toString() {
+        return "time= " + this.time + ", x= " + this.x + ", y= " + this.y + ", heading= " + this.heading
+                + ", t= " + this.t + ", error= " + this.positionError;
+    }
+}
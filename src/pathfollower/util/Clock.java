@@ -0,0 +1,19 @@
+package pathfollower.util;
+
+/**
+ * A source of time, so the controllers can run on the system time or on a simulated time. Only the differences
+ * between times mean anything, the system time starts at an arbitrary point.
+ */
+@FunctionalInterface
+public interface Clock {
+    // Timed by the monotonic nanosecond clock, since the loop runs at a few milliseconds and the system time in
+    // milliseconds would round its periods by about a fifth, or to zero on a tick that catches up
+    Clock SYSTEM = () -> System.nanoTime() / 1e9;
+
+    /**
+     * Returns the current time.
+     *
+     * @return The current time in seconds
+     */
+    double getTime();
+}